@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.benchmark;
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays reproducible games between bots that pick random legal moves,
+ * to give the benchmarks realistic positions and full recorded games.
+ */
+final class BenchmarkGames {
+
+    private BenchmarkGames() {}
+
+    /**
+     * Plays a game with presentation enabled
+     * @return The runner, holding the initial and final state of the game
+     */
+    static TicTacToeMatchRunner play(long seed) {
+        Random random = new Random(seed);
+        List<TicTacToeBot> bots = new ArrayList<>();
+        bots.add((board, botId) -> randomMove(board, random));
+        bots.add((board, botId) -> randomMove(board, random));
+
+        TicTacToeMatchRunner runner = new TicTacToeMatchRunner(bots, 9, 9, true);
+        runner.run();
+        return runner;
+    }
+
+    /**
+     * Returns the state after given number of moves into a game, or the final state of shorter games
+     */
+    static TicTacToeState stateAfter(long seed, int moves) {
+        TicTacToeState state = play(seed).getInitialState();
+        for (int i = 0; i < moves && state.hasNextState(); i++) {
+            state = (TicTacToeState) state.getNextState();
+        }
+        return state;
+    }
+
+    static int randomMove(TicTacToeBoard board, Random random) {
+        int[] moves = new int[board.getWidth() * board.getHeight()];
+        int count = board.getLegalMoves(moves);
+        return moves[random.nextInt(count)];
+    }
+}
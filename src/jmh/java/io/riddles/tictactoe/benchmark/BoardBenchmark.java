@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.benchmark;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the TicTacToeBoard queries the engine runs every move,
+ * on a position 30 moves into a random game.
+ */
+@State(Scope.Thread)
+public class BoardBenchmark extends AbstractBenchmark {
+
+    private TicTacToeBoard board;
+    private int lastMoveX;
+    private int lastMoveY;
+    private int playerId;
+
+    @Setup
+    public void setUp() {
+        TicTacToeState state = BenchmarkGames.stateAfter(42, 30);
+        this.board = state.getBoard();
+        this.playerId = state.getPlayerId();
+        this.lastMoveX = state.getPlayerStateById(this.playerId).getMove().getCoordinate().x;
+        this.lastMoveY = state.getPlayerStateById(this.playerId).getMove().getCoordinate().y;
+    }
+
+    @Benchmark
+    public int updateMacroboard() {
+        this.board.updateMacroboard(this.lastMoveX, this.lastMoveY);
+        return this.board.getAvailableMicroboards();
+    }
+
+    @Benchmark
+    public Integer getMacroboardWinner() {
+        return this.board.getMacroboardWinner();
+    }
+
+    @Benchmark
+    public String toPresentationString() {
+        return this.board.toPresentationString(this.playerId, true);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.benchmark;
+
+import io.riddles.javainterface.io.PlayerResponse;
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner;
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.move.MoveError;
+import io.riddles.tictactoe.game.move.TicTacToeMove;
+import io.riddles.tictactoe.game.move.TicTacToeMoveDeserializer;
+import io.riddles.tictactoe.game.processor.TicTacToeLogic;
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
+import io.riddles.tictactoe.game.state.TicTacToePlayerState;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of parsing and applying a single move, from a position 30 moves into a random game.
+ * Every invocation applies the same move to a fresh copy of that position.
+ */
+@State(Scope.Thread)
+public class ProcessorBenchmark extends AbstractBenchmark {
+
+    private TicTacToeProcessor processor;
+    private TicTacToeState state;
+    private TicTacToeLogic logic;
+    private TicTacToeMoveDeserializer deserializer;
+    private Coordinate move;
+    private int playerId;
+    private String response;
+
+    @Setup
+    public void setUp() {
+        TicTacToeState next = BenchmarkGames.stateAfter(42, 31);
+        this.state = (TicTacToeState) next.getPreviousState();
+        this.playerId = next.getPlayerId();
+        this.move = next.getPlayerStateById(this.playerId).getMove().getCoordinate();
+        this.response = "place_move " + this.move.x + " " + this.move.y;
+
+        TicTacToeMatchRunner runner = BenchmarkGames.play(42);
+        this.processor = runner.getProcessor();
+        this.logic = new TicTacToeLogic();
+        this.deserializer = new TicTacToeMoveDeserializer();
+    }
+
+    @Benchmark
+    public TicTacToeMove moveDeserializerTraverse() {
+        return this.deserializer.traverse(this.response);
+    }
+
+    @Benchmark
+    public MoveError moveDeserializerScan() {
+        return this.deserializer.scan(this.response);
+    }
+
+    @Benchmark
+    public TicTacToeState logicTransform() {
+        TicTacToeState nextState = this.state.createNextState(this.state.getRoundNumber());
+        TicTacToePlayerState playerState = new TicTacToePlayerState(this.playerId);
+        playerState.setMove(new TicTacToeMove(this.move));
+        this.logic.transform(nextState, playerState);
+        return nextState;
+    }
+
+    @Benchmark
+    public TicTacToeState createNextStateFromResponse() {
+        return this.processor.createNextStateFromResponse(this.state,
+                new PlayerResponse(this.response, this.playerId), this.state.getRoundNumber());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.benchmark;
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner;
+import io.riddles.tictactoe.game.TicTacToeSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of serializing a full recorded game to the replay format.
+ */
+@State(Scope.Thread)
+public class SerializerBenchmark extends AbstractBenchmark {
+
+    @Param({ "1", "42", "1337" })
+    public long seed;
+
+    private TicTacToeMatchRunner game;
+    private TicTacToeSerializer serializer;
+
+    @Setup
+    public void setUp() {
+        this.game = BenchmarkGames.play(this.seed);
+        this.serializer = new TicTacToeSerializer();
+    }
+
+    @Benchmark
+    public String traverseToString() {
+        return this.serializer.traverseToString(this.game.getProcessor(), this.game.getInitialState());
+    }
+}
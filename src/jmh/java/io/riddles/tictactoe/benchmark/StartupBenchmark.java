@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.benchmark;
+
+import io.riddles.javainterface.game.player.PlayerProvider;
+import io.riddles.javainterface.io.PlayerResponse;
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.PointAdapter;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToePlayer;
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
+import io.riddles.tictactoe.game.state.TicTacToePlayerState;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start benchmarks: every measurement is the first move played in a fresh JVM, the
+ * way a wrapper that relaunches the engine for every match sees it. Class loading per
+ * benchmark is reported with the cl profiler configured in build.gradle.
+ *
+ * timeToFirstMoveWithPoint does the same through PointAdapter, to show what loading AWT
+ * costs code that still uses java.awt.Point.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    @Benchmark
+    public TicTacToeState timeToFirstMove() {
+        TicTacToeProcessor processor = createProcessor();
+        TicTacToeState state = createInitialState();
+        String field = state.getBoard().toString();
+        String macroboard = state.getBoard().macroboardToString(null);
+
+        TicTacToeState next = processor.createNextStateFromResponse(state, new PlayerResponse("place_move 4 4", 0), 1);
+        processor.hasGameEnded(next);
+        field = next.getBoard().toString();
+        macroboard = next.getBoard().macroboardToString(Coordinate.of(4, 4));
+        return field.length() + macroboard.length() > 0 ? next : null;
+    }
+
+    @Benchmark
+    public TicTacToeState timeToFirstMoveWithPoint() {
+        TicTacToeProcessor processor = createProcessor();
+        TicTacToeState state = createInitialState();
+        String field = state.getBoard().toString();
+        String macroboard = PointAdapter.macroboardToString(state.getBoard(), null);
+
+        TicTacToeState next = processor.createNextStateFromResponse(state, new PlayerResponse("place_move 4 4", 0), 1);
+        processor.hasGameEnded(next);
+        field = next.getBoard().toString();
+        macroboard = PointAdapter.macroboardToString(next.getBoard(), new Point(4, 4));
+        return field.length() + macroboard.length() > 0 ? next : null;
+    }
+
+    private static TicTacToeProcessor createProcessor() {
+        PlayerProvider<TicTacToePlayer> playerProvider = new PlayerProvider<>();
+        playerProvider.add(new TicTacToePlayer(0));
+        playerProvider.add(new TicTacToePlayer(1));
+        return new TicTacToeProcessor(playerProvider);
+    }
+
+    private static TicTacToeState createInitialState() {
+        ArrayList<TicTacToePlayerState> playerStates = new ArrayList<>();
+        playerStates.add(new TicTacToePlayerState(0));
+        playerStates.add(new TicTacToePlayerState(1));
+        TicTacToeState state = new TicTacToeState(new TicTacToeBoard(9, 9), playerStates);
+        state.setPresentation(1);
+        return state;
+    }
+}
@@ -25,19 +25,30 @@ import io.riddles.tictactoe.engine.TicTacToeEngine;
 import io.riddles.tictactoe.game.player.TicTacToePlayer;
 import io.riddles.tictactoe.game.state.TicTacToeState;
 
+import java.nio.file.Paths;
+
 /**
  * Entry point for TicTacToe. It creates an engine and runs it.
  * When an Exception escalates all the way through, the System exits with a status code.
+ * Metrics of the game are written to the file given by the tictactoe.metrics system property,
+ * e.g. -Dtictactoe.metrics=metrics.prom, see TicTacToeEngine.setMetricsFile.
  *
  * @author jim
  */
 public class TicTacToe {
 
+    public static final String METRICS_PROPERTY = "tictactoe.metrics";
+
     public static void main(String[] args) throws Exception {
 
         TicTacToeEngine engine;
         engine = new TicTacToeEngine(new PlayerProvider<TicTacToePlayer>(), new IOHandler());
 
+        String metricsFile = System.getProperty(METRICS_PROPERTY);
+        if (metricsFile != null && !metricsFile.isEmpty()) {
+            engine.setMetricsFile(Paths.get(metricsFile));
+        }
+
         TicTacToeState initialState = engine.willRun();
         TicTacToeState finalState = engine.run(initialState);
         engine.didRun(initialState, finalState);
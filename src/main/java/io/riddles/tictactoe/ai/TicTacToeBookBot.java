@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+import io.riddles.tictactoe.game.player.TicTacToeReadOnlyBot;
+
+/**
+ * TicTacToeBookBot plays from a TicTacToeOpeningBook while the game is in the book, without
+ * spending any time on search, and lets another bot play once it is out of the book.
+ */
+public class TicTacToeBookBot implements TicTacToeReadOnlyBot, AutoCloseable {
+
+    private final TicTacToeOpeningBook book;
+    private final TicTacToeBot fallback;
+    private final int minGames;
+
+    /**
+     * @param book The opening book
+     * @param fallback The bot that plays positions that are not in the book
+     * @param minGames Book moves played in fewer games are not trusted
+     */
+    public TicTacToeBookBot(TicTacToeOpeningBook book, TicTacToeBot fallback, int minGames) {
+        this.book = book;
+        this.fallback = fallback;
+        this.minGames = minGames;
+    }
+
+    @Override
+    public int getMove(TicTacToeBoard board, int botId) {
+        if (!isBookBoard(board)) {
+            return this.fallback.getMove(TicTacToeBot.boardFor(this.fallback, board), botId);
+        }
+        int played = board.getWidth() * board.getHeight() - board.getEmptyCellCount();
+        if (played < this.book.getMaxPly()) {
+            int move = this.book.getBestMove(board, botId, this.minGames);
+            if (move >= 0 && board.isLegalMove(move % board.getWidth(), move / board.getWidth())) {
+                return move;
+            }
+        }
+        return this.fallback.getMove(TicTacToeBot.boardFor(this.fallback, board), botId);
+    }
+
+    /**
+     * Books are built from standard games, and their symmetries are only defined for 9x9 boards
+     */
+    private static boolean isBookBoard(TicTacToeBoard board) {
+        return board.getWidth() == 9 && board.getHeight() == 9 && board.getLineLength() == 3;
+    }
+
+    /**
+     * Closes the fallback bot
+     */
+    @Override
+    public void close() {
+        TicTacToeBot.close(this.fallback);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TicTacToeEvaluationCache is a bounded cache of results per position key, usually a
+ * TicTacToeSymmetry canonical key so symmetric positions share one entry. It can be used
+ * from many threads: keys are spread over segments that each keep their own least recently
+ * used order behind their own lock, so threads only contend when they hit the same segment.
+ *
+ * @param <V> The type of the cached results
+ */
+public class TicTacToeEvaluationCache<V> {
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+
+    /**
+     * @param capacity Maximum number of entries, spread evenly over the segments
+     * @param concurrency Expected number of threads, rounded up to a power of two segments
+     */
+    @SuppressWarnings("unchecked")
+    public TicTacToeEvaluationCache(int capacity, int concurrency) {
+        int segmentCount = 1;
+        while (segmentCount < concurrency) {
+            segmentCount <<= 1;
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment<>(Math.max(1, capacity / segmentCount));
+        }
+    }
+
+    /**
+     * @return The cached result, or null when the key is not cached
+     */
+    public V get(long key) {
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Caches a result, evicting the least recently used entry of the segment when it is full
+     */
+    public void put(long key, V value) {
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment<V> segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment<V> segmentFor(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L; /* Canonical keys are random already, but callers may use any key */
+        return this.segments[(int) (mixed >>> 40) & this.segmentMask];
+    }
+
+    private static class Segment<V> extends LinkedHashMap<Long, V> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+            return size() > this.capacity;
+        }
+    }
+}
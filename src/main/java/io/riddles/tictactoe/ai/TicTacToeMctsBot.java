@@ -0,0 +1,367 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToeReadOnlyBot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TicTacToeMctsBot is a reference bot that plays with Monte Carlo Tree Search (UCT).
+ *
+ * The search is root-parallel: every thread grows its own tree on its own copy of the board,
+ * playing and taking back moves with makeMove/unmakeMove, so the threads share nothing while
+ * searching. When the time budget runs out the visit counts of the root moves are summed in
+ * atomic counters and the most visited move is played. The calling thread searches on the
+ * board it is given and takes all its moves back, so the bot leaves the board as it found it.
+ *
+ * Bots created with withPlayouts search on one thread for a fixed number of playouts instead,
+ * and play the same moves for the same seed on any machine.
+ *
+ * A position in which the player to move has no legal move is scored as a loss for that
+ * player, as the engine would reject any move played there. Bot ids are expected to be 0 and 1.
+ */
+public class TicTacToeMctsBot implements TicTacToeReadOnlyBot, AutoCloseable {
+
+    /* timePerMove from wrapper-commands.json */
+    public static final int DEFAULT_TIME_PER_MOVE = 100;
+
+    private static final int SAFETY_MARGIN = 10; /* ms left for the wrapper round trip */
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int DRAW = -2;
+    private static final int NOT_TERMINAL = -3;
+
+    private final int timePerMove;
+    private final int threadCount;
+    private final int playoutsPerMove;
+    private final ExecutorService executor;
+    private final AtomicLong playouts = new AtomicLong();
+    private long seed;
+
+    /**
+     * Creates a bot that uses all cores and the default time per move of the wrapper
+     */
+    public TicTacToeMctsBot() {
+        this(DEFAULT_TIME_PER_MOVE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param timePerMove Time the bot may think per move in ms, as timePerMove of the wrapper
+     * @param threadCount Number of threads that search in parallel
+     */
+    public TicTacToeMctsBot(int timePerMove, int threadCount) {
+        this(timePerMove, threadCount, 0, System.nanoTime());
+    }
+
+    private TicTacToeMctsBot(int timePerMove, int threadCount, int playoutsPerMove, long seed) {
+        this.timePerMove = timePerMove;
+        this.threadCount = threadCount;
+        this.playoutsPerMove = playoutsPerMove;
+        this.seed = seed;
+        this.executor = threadCount > 1
+                ? Executors.newFixedThreadPool(threadCount - 1, runnable -> {
+                    Thread thread = new Thread(runnable, "mcts-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /**
+     * Creates a single threaded bot that stops after a fixed number of playouts instead of
+     * at a deadline, so its games are reproducible for the same seed
+     * @param playoutsPerMove Playouts per move, at least 1
+     * @param seed Seed of the playouts
+     */
+    public static TicTacToeMctsBot withPlayouts(int playoutsPerMove, long seed) {
+        if (playoutsPerMove < 1) {
+            throw new IllegalArgumentException("Playouts per move must be at least 1, got " + playoutsPerMove);
+        }
+        return new TicTacToeMctsBot(0, 1, playoutsPerMove, seed);
+    }
+
+    @Override
+    public int getMove(TicTacToeBoard board, int botId) {
+        long deadline = System.nanoTime() + Math.max(1, this.timePerMove - SAFETY_MARGIN) * 1000000L;
+        int[] moves = new int[board.getWidth() * board.getHeight()];
+        int moveCount = board.getLegalMoves(moves);
+        if (moveCount == 0) {
+            return 0; /* Lost anyway */
+        }
+        if (moveCount == 1) {
+            return moves[0];
+        }
+
+        AtomicLongArray visits = new AtomicLongArray(moveCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < this.threadCount; i++) {
+            Worker worker = new Worker(new TicTacToeBoard(board), botId, deadline, nextSeed());
+            futures.add(this.executor.submit(() -> worker.search(visits)));
+        }
+        new Worker(board, botId, deadline, nextSeed()).search(visits);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+
+        int best = 0;
+        for (int i = 1; i < moveCount; i++) {
+            if (visits.get(i) > visits.get(best)) {
+                best = i;
+            }
+        }
+        return moves[best];
+    }
+
+    /**
+     * Returns the total number of playouts of all moves so far
+     */
+    public long getPlayouts() {
+        return this.playouts.get();
+    }
+
+    public int getTimePerMove() {
+        return this.timePerMove;
+    }
+
+    /**
+     * Returns the playouts per move of a bot created with withPlayouts, or 0 when it searches until a deadline
+     */
+    public int getPlayoutsPerMove() {
+        return this.playoutsPerMove;
+    }
+
+    /**
+     * Stops the worker threads, the bot can't search on more than one thread after this
+     */
+    public void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Same as shutdown, so bots with worker threads can be closed like any other bot
+     */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private synchronized long nextSeed() {
+        this.seed = this.seed * 6364136223846793005L + 1442695040888963407L;
+        return this.seed;
+    }
+
+    /**
+     * Single threaded UCT search. The tree lives in flat arrays, children of a node are stored
+     * next to each other so expanding a node only appends to the arrays.
+     */
+    private class Worker {
+
+        private static final int UNEXPANDED = -1;
+
+        private final TicTacToeBoard board;
+        private final int botId;
+        private final long deadline;
+        private final int[] moves;
+        private final int[] path;
+        private long random;
+
+        private int nodeCount;
+        private int[] move = new int[1024];
+        private int[] firstChild = new int[1024];
+        private int[] childCount = new int[1024];
+        private int[] nodeVisits = new int[1024];
+        private double[] nodeValue = new double[1024];
+
+        /**
+         * @param board The board to search on, every move played on it is taken back
+         */
+        Worker(TicTacToeBoard board, int botId, long deadline, long seed) {
+            this.board = board;
+            this.botId = botId;
+            this.deadline = deadline;
+            this.moves = new int[board.getWidth() * board.getHeight()];
+            this.path = new int[board.getWidth() * board.getHeight() + 1];
+            this.random = seed | 1;
+        }
+
+        void search(AtomicLongArray rootVisits) {
+            addNode(TicTacToeBoard.EMPTY_CELL);
+            int budget = TicTacToeMctsBot.this.playoutsPerMove;
+            long iterations = 0;
+            do {
+                int batch = budget > 0 ? (int) Math.min(64, budget - iterations) : 64;
+                for (int i = 0; i < batch; i++) {
+                    iterate();
+                }
+                iterations += batch;
+            } while (budget > 0 ? iterations < budget : System.nanoTime() < this.deadline);
+
+            int root = 0;
+            for (int i = 0; i < this.childCount[root]; i++) {
+                rootVisits.addAndGet(i, this.nodeVisits[this.firstChild[root] + i]);
+            }
+            TicTacToeMctsBot.this.playouts.addAndGet(iterations);
+        }
+
+        private void iterate() {
+            int node = 0;
+            int depth = 0;
+            int player = this.botId;
+            int winner = terminalWinner(player);
+            this.path[0] = node;
+
+            /* Selection */
+            while (winner == NOT_TERMINAL && this.childCount[node] > 0) {
+                node = select(node);
+                play(this.move[node], player);
+                player = 1 - player;
+                this.path[++depth] = node;
+                winner = terminalWinner(player);
+            }
+
+            /* Expansion */
+            if (winner == NOT_TERMINAL && this.childCount[node] == UNEXPANDED) {
+                expand(node);
+                node = this.firstChild[node] + nextInt(this.childCount[node]);
+                play(this.move[node], player);
+                player = 1 - player;
+                this.path[++depth] = node;
+                winner = terminalWinner(player);
+            }
+
+            /* Simulation */
+            int rolloutMoves = 0;
+            while (winner == NOT_TERMINAL) {
+                int count = this.board.getLegalMoves(this.moves);
+                play(this.moves[nextInt(count)], player);
+                player = 1 - player;
+                rolloutMoves++;
+                winner = terminalWinner(player);
+            }
+            for (int i = 0; i < rolloutMoves + depth; i++) {
+                this.board.unmakeMove();
+            }
+
+            /* Backpropagation, values are from the view of the player that moved into the node */
+            for (int i = depth; i >= 0; i--) {
+                int n = this.path[i];
+                int mover = (i % 2 == 1) ? this.botId : 1 - this.botId;
+                this.nodeVisits[n]++;
+                if (winner == mover) {
+                    this.nodeValue[n] += 1;
+                } else if (winner == DRAW) {
+                    this.nodeValue[n] += 0.5;
+                }
+            }
+        }
+
+        private int select(int node) {
+            int first = this.firstChild[node];
+            int count = this.childCount[node];
+            double logVisits = Math.log(this.nodeVisits[node]);
+            int best = first;
+            double bestScore = -1;
+            for (int c = first; c < first + count; c++) {
+                if (this.nodeVisits[c] == 0) {
+                    return c;
+                }
+                double score = this.nodeValue[c] / this.nodeVisits[c]
+                        + EXPLORATION * Math.sqrt(logVisits / this.nodeVisits[c]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        private void expand(int node) {
+            int count = this.board.getLegalMoves(this.moves);
+            this.firstChild[node] = this.nodeCount;
+            this.childCount[node] = count;
+            for (int i = 0; i < count; i++) {
+                addNode(this.moves[i]);
+            }
+        }
+
+        private void addNode(int cell) {
+            if (this.nodeCount == this.move.length) {
+                int capacity = this.move.length * 2;
+                this.move = Arrays.copyOf(this.move, capacity);
+                this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+                this.childCount = Arrays.copyOf(this.childCount, capacity);
+                this.nodeVisits = Arrays.copyOf(this.nodeVisits, capacity);
+                this.nodeValue = Arrays.copyOf(this.nodeValue, capacity);
+            }
+            int node = this.nodeCount++;
+            this.move[node] = cell;
+            this.firstChild[node] = 0;
+            this.childCount[node] = UNEXPANDED;
+            this.nodeVisits[node] = 0;
+            this.nodeValue[node] = 0;
+        }
+
+        private void play(int cell, int player) {
+            this.board.makeMove(cell % this.board.getWidth(), cell / this.board.getWidth(), player);
+        }
+
+        /**
+         * @return The winner, DRAW, or NOT_TERMINAL when the game goes on with player to move
+         */
+        private int terminalWinner(int player) {
+            int winner = this.board.getMacroboardWinnerId();
+            if (winner != TicTacToeBoard.EMPTY_CELL) {
+                return winner;
+            }
+            if (this.board.boardIsFull() || this.board.macroboardIsFull()) {
+                return DRAW;
+            }
+            if (this.board.getLegalMoveCount() == 0) {
+                return 1 - player;
+            }
+            return NOT_TERMINAL;
+        }
+
+        /* xorshift64, a shared Random would make the threads contend */
+        private int nextInt(int bound) {
+            this.random ^= this.random << 13;
+            this.random ^= this.random >>> 7;
+            this.random ^= this.random << 17;
+            return (int) ((this.random >>> 33) % bound);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TicTacToeOpeningBook holds win/draw/loss statistics of the moves played in early positions,
+ * as written by TicTacToeOpeningBookBuilder. The file is memory mapped and searched in place.
+ *
+ * Positions are stored by their TicTacToeSymmetry canonical key and moves in the frame of the
+ * canonical image, so all symmetric positions share their statistics. Lookups map the moves
+ * back to the board they are asked for.
+ *
+ * File layout (big endian):
+ * - header: magic, version, max ply, entry count
+ * - entries sorted by key (unsigned) and move: key (long), move (byte), wins, draws, losses (ints),
+ *   counted for the player making the move
+ */
+public class TicTacToeOpeningBook {
+
+    static final int MAGIC = 0x55544F42; /* "UTOB" */
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 1 + 1 + 4;
+    static final int ENTRY_SIZE = 8 + 1 + 4 + 4 + 4;
+
+    private final MappedByteBuffer buffer;
+    private final int maxPly;
+    private final int entryCount;
+
+    public TicTacToeOpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.buffer.getInt(0) != MAGIC || this.buffer.get(4) != VERSION) {
+            throw new IOException("Not an opening book file: " + path);
+        }
+        this.maxPly = this.buffer.get(5);
+        this.entryCount = this.buffer.getInt(6);
+        if (this.buffer.capacity() != HEADER_SIZE + this.entryCount * ENTRY_SIZE) {
+            throw new IOException("Truncated opening book file: " + path);
+        }
+    }
+
+    /**
+     * Writes the book moves of a position into given buffers
+     * @param playerToMove The id of the player that makes the next move
+     * @param moves Receives the moves as cell indices (y * width + x) of the given board
+     * @param stats Receives wins, draws and losses of every move, 3 ints per move
+     * @return The number of book moves
+     */
+    public int getMoves(TicTacToeBoard board, int playerToMove, int[] moves, int[] stats) {
+        int symmetry = TicTacToeSymmetry.canonicalSymmetry(board, playerToMove);
+        long key = TicTacToeSymmetry.key(board, playerToMove, symmetry);
+        int inverse = TicTacToeSymmetry.inverse(symmetry);
+
+        int count = 0;
+        for (int entry = findFirst(key); entry < this.entryCount && getKey(entry) == key; entry++) {
+            int offset = HEADER_SIZE + entry * ENTRY_SIZE;
+            moves[count] = TicTacToeSymmetry.transformCell(inverse, this.buffer.get(offset + 8));
+            stats[count * 3] = this.buffer.getInt(offset + 9);
+            stats[count * 3 + 1] = this.buffer.getInt(offset + 13);
+            stats[count * 3 + 2] = this.buffer.getInt(offset + 17);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Picks the book move with the best score (wins plus half the draws, per game)
+     * @param playerToMove The id of the player that makes the next move
+     * @param minGames Moves played in fewer games are ignored
+     * @return The move as cell index (y * width + x), or -1 when the book has no move
+     */
+    public int getBestMove(TicTacToeBoard board, int playerToMove, int minGames) {
+        int[] moves = new int[board.getWidth() * board.getHeight()];
+        int[] stats = new int[moves.length * 3];
+        int count = getMoves(board, playerToMove, moves, stats);
+        int best = -1;
+        double bestScore = -1;
+        for (int i = 0; i < count; i++) {
+            int games = stats[i * 3] + stats[i * 3 + 1] + stats[i * 3 + 2];
+            if (games < minGames) {
+                continue;
+            }
+            double score = (stats[i * 3] + stats[i * 3 + 1] / 2.0) / games;
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    public int getMaxPly() {
+        return this.maxPly;
+    }
+
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    private long getKey(int entry) {
+        return this.buffer.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+    }
+
+    /* Lower bound: the first entry with a key that is not smaller than given key */
+    private int findFirst(long key) {
+        int low = 0;
+        int high = this.entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    static void writeHeader(ByteBuffer header, int maxPly, int entryCount) {
+        header.putInt(MAGIC);
+        header.put((byte) VERSION);
+        header.put((byte) maxPly);
+        header.putInt(entryCount);
+    }
+}
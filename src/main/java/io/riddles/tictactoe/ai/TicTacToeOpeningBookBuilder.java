@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.move.TicTacToeMove;
+import io.riddles.tictactoe.game.player.TicTacToePlayer;
+import io.riddles.tictactoe.game.processor.AdjudicationReason;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+import io.riddles.tictactoe.game.state.TicTacToeStateDeserializer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TicTacToeOpeningBookBuilder turns played games into a TicTacToeOpeningBook. Replays are
+ * streamed through TicTacToeStateDeserializer one game at a time, and the first moves of
+ * every game are counted per canonical position with the result of the game.
+ *
+ * Games that ended with an illegal move count up to that move, games decided by the
+ * tablebase are skipped because the replay does not say who won.
+ */
+public class TicTacToeOpeningBookBuilder {
+
+    /* Per position: packed move, wins, draws, losses for every move seen */
+    private final Map<Long, int[]> positions = new HashMap<>();
+    private final TicTacToeStateDeserializer deserializer;
+    private final int maxPly;
+    private int gameCount;
+
+    /**
+     * @param maxPly Number of moves from the start of every game that go into the book
+     */
+    public TicTacToeOpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+        ArrayList<TicTacToePlayer> players = new ArrayList<>();
+        players.add(new TicTacToePlayer(0));
+        players.add(new TicTacToePlayer(1));
+        this.deserializer = new TicTacToeStateDeserializer(players);
+    }
+
+    /**
+     * Adds a game in the replay format of the engine
+     * @param replay Reader of a single game, it is not closed
+     */
+    public void addReplay(Reader replay) {
+        addGame(this.deserializer.traverse(replay));
+    }
+
+    /**
+     * Adds a played game
+     * @param finalState The last state of the game
+     */
+    public void addGame(TicTacToeState finalState) {
+        Integer winner = getWinner(finalState);
+        TicTacToeBoard finalBoard = finalState.getBoard();
+        if (winner == null || finalBoard.getWidth() != 9 || finalBoard.getHeight() != 9 || finalBoard.getLineLength() != 3) {
+            return;
+        }
+
+        ArrayList<TicTacToeState> states = new ArrayList<>();
+        for (TicTacToeState state = finalState; state != null; state = (TicTacToeState) state.getPreviousState()) {
+            states.add(state);
+        }
+        this.gameCount++;
+
+        for (int ply = 0; ply < this.maxPly && ply + 1 < states.size(); ply++) {
+            TicTacToeState state = states.get(states.size() - 1 - ply);
+            TicTacToeState next = states.get(states.size() - 2 - ply);
+            int player = next.getPlayerId();
+            TicTacToeMove move = next.getPlayerStateById(player).getMove();
+            if (move == null || move.getException() != null || move.getCoordinate() == null) {
+                break;
+            }
+            Coordinate coordinate = move.getCoordinate();
+            TicTacToeBoard board = state.getBoard();
+            int symmetry = TicTacToeSymmetry.canonicalSymmetry(board, player);
+            long key = TicTacToeSymmetry.key(board, player, symmetry);
+            int cell = TicTacToeSymmetry.transformCell(symmetry, coordinate.y * board.getWidth() + coordinate.x);
+            int result = winner == player ? 0 : winner == TicTacToeBoard.EMPTY_CELL ? 1 : 2;
+            count(key, cell, result);
+        }
+    }
+
+    private void count(long key, int cell, int result) {
+        int[] moves = this.positions.get(key);
+        int length = 0;
+        if (moves != null) {
+            for (length = 0; length < moves.length && moves[length] != -1; length += 4) {
+                if (moves[length] == cell) {
+                    moves[length + 1 + result]++;
+                    return;
+                }
+            }
+        }
+        if (moves == null || length == moves.length) {
+            int[] grown = new int[moves == null ? 4 : moves.length * 2];
+            Arrays.fill(grown, -1);
+            if (moves != null) {
+                System.arraycopy(moves, 0, grown, 0, moves.length);
+            }
+            moves = grown;
+            this.positions.put(key, moves);
+        }
+        moves[length] = cell;
+        moves[length + 1] = 0;
+        moves[length + 2] = 0;
+        moves[length + 3] = 0;
+        moves[length + 1 + result]++;
+    }
+
+    /**
+     * Works out the result of a game from its last state
+     * @return The id of the winner, EMPTY_CELL for a draw, or null when the replay does not tell
+     */
+    static Integer getWinner(TicTacToeState finalState) {
+        TicTacToeMove move = finalState.getPlayerStateById(finalState.getPlayerId()).getMove();
+        if (move != null && move.getException() != null) {
+            return 1 - finalState.getPlayerId();
+        }
+        Integer winner = finalState.getBoard().getMacroboardWinner();
+        if (winner != null) {
+            return winner;
+        }
+        if (finalState.getAdjudication() == AdjudicationReason.TABLEBASE) {
+            return null;
+        }
+        return TicTacToeBoard.EMPTY_CELL;
+    }
+
+    public int getGameCount() {
+        return this.gameCount;
+    }
+
+    public int getPositionCount() {
+        return this.positions.size();
+    }
+
+    /**
+     * Writes the book
+     * @param minGames Moves played in fewer games are left out
+     */
+    public void write(Path path, int minGames) throws IOException {
+        long[] keys = new long[this.positions.size()];
+        int k = 0;
+        for (long key : this.positions.keySet()) {
+            keys[k++] = key ^ Long.MIN_VALUE; /* Flip the sign bit, so a signed sort is an unsigned sort */
+        }
+        Arrays.sort(keys);
+
+        ByteBuffer entries = ByteBuffer.allocate(countEntries(minGames) * TicTacToeOpeningBook.ENTRY_SIZE);
+        for (long sortKey : keys) {
+            long key = sortKey ^ Long.MIN_VALUE;
+            int[] moves = this.positions.get(key);
+            int[] order = new int[moves.length / 4];
+            int count = 0;
+            for (int i = 0; i < moves.length && moves[i] != -1; i += 4) {
+                if (moves[i + 1] + moves[i + 2] + moves[i + 3] >= minGames) {
+                    order[count++] = moves[i] << 16 | i; /* Sort by cell, remember where the stats are */
+                }
+            }
+            Arrays.sort(order, 0, count);
+            for (int i = 0; i < count; i++) {
+                int index = order[i] & 0xFFFF;
+                entries.putLong(key);
+                entries.put((byte) moves[index]);
+                entries.putInt(moves[index + 1]);
+                entries.putInt(moves[index + 2]);
+                entries.putInt(moves[index + 3]);
+            }
+        }
+        entries.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(TicTacToeOpeningBook.HEADER_SIZE);
+        TicTacToeOpeningBook.writeHeader(header, this.maxPly, entries.remaining() / TicTacToeOpeningBook.ENTRY_SIZE);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+        }
+    }
+
+    private int countEntries(int minGames) {
+        int count = 0;
+        for (int[] moves : this.positions.values()) {
+            for (int i = 0; i < moves.length && moves[i] != -1; i += 4) {
+                if (moves[i + 1] + moves[i + 2] + moves[i + 3] >= minGames) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
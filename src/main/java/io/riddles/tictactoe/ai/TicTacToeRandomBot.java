@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToeReadOnlyBot;
+
+/**
+ * TicTacToeRandomBot plays a uniformly random legal move. It is the cheapest policy for
+ * self-play and a baseline opponent. Instances are not thread safe, use one per thread.
+ */
+public class TicTacToeRandomBot implements TicTacToeReadOnlyBot {
+
+    private long random;
+    private int[] moves;
+
+    /**
+     * @param seed Seed of the move sequence, games are reproducible for the same seed
+     */
+    public TicTacToeRandomBot(long seed) {
+        this.random = seed != 0 ? seed : 0x9E3779B97F4A7C15L; /* xorshift gets stuck on 0 */
+    }
+
+    @Override
+    public int getMove(TicTacToeBoard board, int botId) {
+        int cells = board.getWidth() * board.getHeight();
+        if (this.moves == null || this.moves.length != cells) {
+            this.moves = new int[cells];
+        }
+        int count = board.getLegalMoves(this.moves);
+        if (count == 0) {
+            return 0; /* Lost anyway */
+        }
+        return this.moves[nextInt(count)];
+    }
+
+    /* xorshift64, as in the playouts of TicTacToeMctsBot */
+    private int nextInt(int bound) {
+        this.random ^= this.random << 13;
+        this.random ^= this.random >>> 7;
+        this.random ^= this.random << 17;
+        return (int) ((this.random >>> 33) % bound);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+import io.riddles.tictactoe.game.player.TicTacToeReadOnlyBot;
+
+/**
+ * TicTacToeScriptedBot plays a fixed sequence of moves, such as an opening to generate
+ * self-play games from, and lets another bot play once the script has run out or its
+ * next move is not legal. Moves are picked by ply, so one script covers both players.
+ */
+public class TicTacToeScriptedBot implements TicTacToeReadOnlyBot, AutoCloseable {
+
+    private final int[] script;
+    private final TicTacToeBot fallback;
+
+    /**
+     * @param script Cell index (y * width + x) of the move of every ply, starting at the first move of the game
+     * @param fallback The bot that plays after the script
+     */
+    public TicTacToeScriptedBot(int[] script, TicTacToeBot fallback) {
+        this.script = script.clone();
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int getMove(TicTacToeBoard board, int botId) {
+        int played = board.getWidth() * board.getHeight() - board.getEmptyCellCount();
+        if (played < this.script.length) {
+            int move = this.script[played];
+            if (move >= 0 && board.isLegalMove(move % board.getWidth(), move / board.getWidth())) {
+                return move;
+            }
+        }
+        return this.fallback.getMove(TicTacToeBot.boardFor(this.fallback, board), botId);
+    }
+
+    /**
+     * Closes the fallback bot
+     */
+    @Override
+    public void close() {
+        TicTacToeBot.close(this.fallback);
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.data.TicTacToeGeometry;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.util.Arrays;
+
+/**
+ * TicTacToeSearch is a deterministic analysis engine: iterative deepening principal variation
+ * search (alpha-beta with null windows) over makeMove/unmakeMove on a private board copy.
+ *
+ * Positions are keyed by a Zobrist hash of the stones and the active microboard that is
+ * updated with every move, and stored in a TicTacToeTranspositionTable. The table is
+ * lock-free, so several searches (one per thread, a search itself is not thread-safe) may
+ * share a table. Moves are tried in order: best move from the table, moves that capture a
+ * microboard, then by history of earlier cutoffs; moves that give the opponent a free choice
+ * of microboard are tried late.
+ *
+ * Scores are from the view of the player to move, WIN - n for a win in n moves.
+ * A player without legal moves loses, as the engine would reject any move played there.
+ */
+public class TicTacToeSearch implements TicTacToeBot {
+
+    public static final int WIN = 30000;
+    /**
+     * Plies of a game on the largest board, scores beyond WIN - MAX_PLY are forced wins
+     */
+    public static final int MAX_PLY = TicTacToeGeometry.MAX_SIZE * TicTacToeGeometry.MAX_SIZE
+            * TicTacToeGeometry.MAX_SIZE * TicTacToeGeometry.MAX_SIZE + 1;
+
+    private static final int INFINITY = WIN + 1;
+    private static final int SAFETY_MARGIN = 10; /* ms left for the wrapper round trip */
+
+    private final TicTacToeTranspositionTable table;
+    private TicTacToeTablebase tablebase;
+    private int timePerMove = TicTacToeMctsBot.DEFAULT_TIME_PER_MOVE;
+
+    private TicTacToeBoard board;
+    private TicTacToeZobrist zobrist;
+    private long hash;
+    private long nodes;
+    private long deadline;
+    private boolean aborted;
+    private int[][] moves;
+    private int[][] moveScores;
+    private int[][] history;
+    private int maxPly;
+    private int[][] pv;
+    private int[] pvLength;
+
+    /**
+     * Creates a search with its own table of 2^20 entries (16 MB)
+     */
+    public TicTacToeSearch() {
+        this(new TicTacToeTranspositionTable(20));
+    }
+
+    public TicTacToeSearch(TicTacToeTranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Searches the position after given state
+     * @param maxDepth Maximum depth in moves, at least 1
+     * @param timeLimit Time limit in ms, 0 for none. The last completed depth is returned.
+     */
+    public TicTacToeSearchResult search(TicTacToeState state, int maxDepth, int timeLimit) {
+        return search(state.getBoard(), getPlayerToMove(state), maxDepth, timeLimit);
+    }
+
+    /**
+     * Searches a position
+     * @param board The board, it is not changed
+     * @param playerToMove The id of the player that makes the next move
+     * @param maxDepth Maximum depth in moves, at least 1
+     * @param timeLimit Time limit in ms, 0 for none. The last completed depth is returned.
+     */
+    public TicTacToeSearchResult search(TicTacToeBoard board, int playerToMove, int maxDepth, int timeLimit) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Search depth must be at least 1, got " + maxDepth);
+        }
+        prepare(board);
+        this.hash = this.zobrist.hash(this.board, playerToMove);
+        this.nodes = 0;
+        this.aborted = false;
+        this.deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : 0;
+
+        TicTacToeSearchResult result = null;
+        for (int depth = 1; depth <= Math.min(maxDepth, this.maxPly - 1); depth++) {
+            int score = negamax(depth, -INFINITY, INFINITY, 0, playerToMove);
+            if (this.aborted && result != null) {
+                break;
+            }
+            result = new TicTacToeSearchResult(score, depth, Arrays.copyOf(this.pv[0], this.pvLength[0]), this.nodes);
+            if (result.isDecisive() || this.aborted) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays the best move found within the time per move, or the first legal move when
+     * the search was cut short before it had a principal variation
+     */
+    @Override
+    public int getMove(TicTacToeBoard board, int botId) {
+        TicTacToeSearchResult result = search(board, botId, board.getWidth() * board.getHeight(),
+                Math.max(1, this.timePerMove - SAFETY_MARGIN));
+        int move = result.getBestMove();
+        if (move < 0) {
+            int[] moves = new int[board.getWidth() * board.getHeight()];
+            move = board.getLegalMoves(moves) > 0 ? moves[0] : 0; /* Lost anyway without a legal move */
+        }
+        return move;
+    }
+
+    /**
+     * @param timePerMove Time getMove may take in ms, as timePerMove of the wrapper
+     */
+    public void setTimePerMove(int timePerMove) {
+        this.timePerMove = timePerMove;
+    }
+
+    /**
+     * Makes the search look up positions with few empty cells in given tablebase
+     * @param tablebase The tablebase, or null to search every position
+     */
+    public void setTablebase(TicTacToeTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Returns the id of the player that makes the move after given state
+     */
+    public static int getPlayerToMove(TicTacToeState state) {
+        if (state.getMoveNumber() == 0) {
+            return 0;
+        }
+        return 1 - state.getPlayerId();
+    }
+
+    /**
+     * Sizes the per ply arrays for a game on the board, which lasts at most one ply per cell
+     */
+    private void prepare(TicTacToeBoard board) {
+        int cells = board.getWidth() * board.getHeight();
+        if (this.moves == null || this.moves[0].length != cells) {
+            this.maxPly = cells + 1;
+            this.zobrist = new TicTacToeZobrist(board.getWidth(), board.getHeight());
+            this.moves = new int[this.maxPly + 1][cells];
+            this.moveScores = new int[this.maxPly + 1][cells];
+            this.pv = new int[this.maxPly + 1][this.maxPly + 1];
+            this.pvLength = new int[this.maxPly + 1];
+            this.history = new int[TicTacToeBoard.PLAYER_COUNT][cells];
+        }
+        for (int[] playerHistory : this.history) {
+            Arrays.fill(playerHistory, 0);
+        }
+        this.board = new TicTacToeBoard(board);
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, int player) {
+        this.pvLength[ply] = ply;
+        if ((++this.nodes & 1023) == 0 && this.deadline != 0 && System.nanoTime() > this.deadline) {
+            this.aborted = true;
+        }
+        if (this.aborted) {
+            return 0;
+        }
+
+        int winner = this.board.getMacroboardWinnerId();
+        if (winner != TicTacToeBoard.EMPTY_CELL) {
+            return winner == player ? WIN - ply : -(WIN - ply);
+        }
+        if (this.board.boardIsFull() || this.board.macroboardIsFull()) {
+            return 0;
+        }
+        int[] plyMoves = this.moves[ply];
+        int count = this.board.getLegalMoves(plyMoves);
+        if (count == 0) {
+            return -(WIN - ply);
+        }
+        if (ply > 0 && this.tablebase != null && this.board.getPlayableCellCount() <= this.tablebase.getMaxEmptyCells()) {
+            int value = this.tablebase.probe(this.hash);
+            if (value != TicTacToeTablebase.NOT_FOUND) {
+                int distance = TicTacToeTablebase.getDistance(value);
+                switch (TicTacToeTablebase.getOutcome(value)) {
+                    case TicTacToeTablebase.WIN:
+                        return WIN - ply - distance;
+                    case TicTacToeTablebase.LOSS:
+                        return -(WIN - ply - distance);
+                    default:
+                        return 0;
+                }
+            }
+        }
+        if (depth <= 0) {
+            return evaluate(player) - evaluate(1 - player);
+        }
+
+        int ttMove = -1;
+        long entry = this.table.probe(this.hash);
+        if (entry != 0) {
+            ttMove = TicTacToeTranspositionTable.getBestMove(entry);
+            /* No cutoffs on the principal variation, it would be cut short */
+            if (beta - alpha == 1 && TicTacToeTranspositionTable.getDepth(entry) >= depth) {
+                int score = fromTable(TicTacToeTranspositionTable.getScore(entry), ply);
+                int bound = TicTacToeTranspositionTable.getBound(entry);
+                if (bound == TicTacToeTranspositionTable.EXACT
+                        || (bound == TicTacToeTranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TicTacToeTranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+        scoreMoves(ply, count, ttMove, player);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, i, count);
+            long previousHash = this.hash;
+            play(move, player);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1, 1 - player);
+            } else {
+                score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1, 1 - player);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1, 1 - player);
+                }
+            }
+            this.board.unmakeMove();
+            this.hash = previousHash;
+            if (this.aborted) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+                this.pv[ply][ply] = move;
+                System.arraycopy(this.pv[ply + 1], ply + 1, this.pv[ply], ply + 1, this.pvLength[ply + 1] - ply - 1);
+                this.pvLength[ply] = Math.max(ply + 1, this.pvLength[ply + 1]);
+            }
+            if (alpha >= beta) {
+                this.history[player][move] += depth * depth;
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TicTacToeTranspositionTable.UPPER_BOUND
+                : best >= beta ? TicTacToeTranspositionTable.LOWER_BOUND
+                : TicTacToeTranspositionTable.EXACT;
+        this.table.store(this.hash, toTable(best, ply), depth, bound, bestMove);
+        return best;
+    }
+
+    private void play(int move, int player) {
+        int width = this.board.getWidth();
+        int previousActive = this.board.getActiveMicroboard();
+        this.board.makeMove(move % width, move / width, player);
+        this.hash ^= this.zobrist.cellKey(player, move)
+                ^ this.zobrist.activeKey(previousActive)
+                ^ this.zobrist.activeKey(this.board.getActiveMicroboard())
+                ^ this.zobrist.sideKey(1);
+    }
+
+    private void scoreMoves(int ply, int count, int ttMove, int player) {
+        TicTacToeGeometry geometry = this.board.getGeometry();
+        int closed = this.board.getClosedMicroboards();
+        for (int i = 0; i < count; i++) {
+            int move = this.moves[ply][i];
+            int microboard = geometry.getMicroboard(move);
+            int target = geometry.getCellBit(move);
+            boolean captures = geometry.wins(this.board.getMicroboardMask(player, microboard) | 1 << target, target);
+
+            int score = this.history[player][move];
+            if (move == ttMove) {
+                score += 1 << 30;
+            }
+            if (captures) {
+                score += 1 << 20;
+            }
+            if ((closed & (1 << target)) != 0 || (captures && target == microboard)) {
+                score -= 1 << 16; /* The opponent may play anywhere */
+            }
+            this.moveScores[ply][i] = score;
+        }
+    }
+
+    /**
+     * Selection sort step: moves the best of the remaining moves to position i
+     */
+    private int nextMove(int ply, int i, int count) {
+        int[] plyMoves = this.moves[ply];
+        int[] scores = this.moveScores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = plyMoves[best];
+        plyMoves[best] = plyMoves[i];
+        plyMoves[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    /**
+     * Static evaluation for one player: won microboards, lines that need one more stone
+     * in open microboards, and macroboard lines that need one more microboard
+     */
+    private int evaluate(int player) {
+        TicTacToeGeometry geometry = this.board.getGeometry();
+        int[] lines = geometry.getLines();
+        int almost = geometry.getLineLength() - 1;
+        int microboardCount = geometry.getCellCount();
+        int center = geometry.getSize() % 2 != 0 ? microboardCount / 2 : TicTacToeBoard.EMPTY_CELL;
+        int won = this.board.getMacroboardMask(player);
+        int lost = this.board.getMacroboardMask(1 - player);
+        int closed = this.board.getClosedMicroboards();
+        int score = 0;
+        for (int microboard = 0; microboard < microboardCount; microboard++) {
+            int bit = 1 << microboard;
+            if ((won & bit) != 0) {
+                score += microboard == center ? 150 : 100;
+            } else if ((closed & bit) == 0) {
+                int own = this.board.getMicroboardMask(player, microboard);
+                int other = this.board.getMicroboardMask(1 - player, microboard);
+                for (int line : lines) {
+                    if ((other & line) == 0 && Integer.bitCount(own & line) == almost) {
+                        score += 8;
+                    }
+                }
+            }
+        }
+        for (int line : lines) {
+            if ((lost & line) == 0 && Integer.bitCount(won & line) == almost && (line & ~won & closed) == 0) {
+                score += 300;
+            }
+        }
+        return score;
+    }
+
+    /* Wins are stored relative to the position, so they stay valid at any ply */
+    private static int toTable(int score, int ply) {
+        if (score > WIN - MAX_PLY) {
+            return score + ply;
+        }
+        if (score < -(WIN - MAX_PLY)) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN - MAX_PLY) {
+            return score - ply;
+        }
+        if (score < -(WIN - MAX_PLY)) {
+            return score + ply;
+        }
+        return score;
+    }
+}
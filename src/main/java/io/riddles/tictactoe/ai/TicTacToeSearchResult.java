@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import java.util.Arrays;
+
+/**
+ * TicTacToeSearchResult is the outcome of a TicTacToeSearch: the score of the position
+ * for the player to move, and the moves both players are expected to play from there.
+ */
+public class TicTacToeSearchResult {
+
+    private final int score;
+    private final int depth;
+    private final int[] principalVariation;
+    private final long nodes;
+
+    public TicTacToeSearchResult(int score, int depth, int[] principalVariation, long nodes) {
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return Score for the player to move, TicTacToeSearch.WIN minus the number of moves for a forced win
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * @return The depth of the last completed iteration
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * @return The expected moves as cell indices (y * width + x), starting with the best move
+     */
+    public int[] getPrincipalVariation() {
+        return this.principalVariation.clone();
+    }
+
+    /**
+     * @return The best move as cell index, or -1 when there is no legal move
+     */
+    public int getBestMove() {
+        return this.principalVariation.length > 0 ? this.principalVariation[0] : -1;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @return True when the score is a forced win or loss
+     */
+    public boolean isDecisive() {
+        return Math.abs(this.score) > TicTacToeSearch.WIN - TicTacToeSearch.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return "score " + this.score + " depth " + this.depth + " pv " + Arrays.toString(this.principalVariation);
+    }
+}
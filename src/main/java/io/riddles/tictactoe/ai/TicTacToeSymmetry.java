@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+import java.util.Random;
+
+/**
+ * TicTacToeSymmetry maps positions on the 9x9 board to a canonical key that is the same
+ * for all 8 rotations and reflections of a position. The same symmetry acts on the macroboard
+ * and inside every microboard, so it maps lines to lines and legal moves to legal moves.
+ *
+ * Every symmetry is a permutation of the 9 cells of a 3x3 board. Precomputed tables apply it
+ * to whole 9 bit masks at once, and a position is hashed from per (microboard, player, mask)
+ * keys, so hashing all 8 images of a position costs a few table lookups per microboard.
+ * The canonical key is the smallest of the 8 hashes.
+ */
+public final class TicTacToeSymmetry {
+
+    public static final int IDENTITY = 0;
+    public static final int COUNT = 8;
+
+    private static final int SIZE = 3;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int MASKS = 1 << CELLS;
+
+    /* Where cell (y * 3 + x) of a 3x3 board ends up under each symmetry */
+    private static final int[][] CELL_MAP = new int[COUNT][CELLS];
+    private static final int[][] MASK_MAP = new int[COUNT][MASKS];
+    private static final int[] INVERSE = new int[COUNT];
+
+    private static final long[] MASK_KEYS = new long[CELLS * TicTacToeBoard.PLAYER_COUNT * MASKS];
+    private static final long[] ACTIVE_KEYS = new long[CELLS + 1];
+    private static final long SIDE_KEY;
+
+    static {
+        for (int s = 0; s < COUNT; s++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    CELL_MAP[s][y * SIZE + x] = map(s, x, y);
+                }
+            }
+            for (int mask = 0; mask < MASKS; mask++) {
+                int mapped = 0;
+                for (int cell = 0; cell < CELLS; cell++) {
+                    if ((mask & (1 << cell)) != 0) {
+                        mapped |= 1 << CELL_MAP[s][cell];
+                    }
+                }
+                MASK_MAP[s][mask] = mapped;
+            }
+        }
+        for (int s = 0; s < COUNT; s++) {
+            for (int t = 0; t < COUNT; t++) {
+                if (CELL_MAP[t][CELL_MAP[s][1]] == 1 && CELL_MAP[t][CELL_MAP[s][3]] == 3) {
+                    INVERSE[s] = t;
+                }
+            }
+        }
+
+        Random random = new Random(0xD1ED);
+        for (int i = 0; i < MASK_KEYS.length; i++) {
+            MASK_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < ACTIVE_KEYS.length; i++) {
+            ACTIVE_KEYS[i] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private TicTacToeSymmetry() {}
+
+    private static int map(int symmetry, int x, int y) {
+        int last = SIZE - 1;
+        switch (symmetry) {
+            case 1: return x * SIZE + (last - y);          /* rotate 90 */
+            case 2: return (last - y) * SIZE + (last - x); /* rotate 180 */
+            case 3: return (last - x) * SIZE + y;          /* rotate 270 */
+            case 4: return y * SIZE + (last - x);          /* mirror horizontally */
+            case 5: return (last - y) * SIZE + x;          /* mirror vertically */
+            case 6: return x * SIZE + y;                   /* transpose */
+            case 7: return (last - x) * SIZE + (last - y); /* anti-transpose */
+            default: return y * SIZE + x;
+        }
+    }
+
+    /**
+     * Returns the canonical key of a position, the same for all its symmetric images
+     * @param playerToMove The id of the player that makes the next move
+     */
+    public static long canonicalKey(TicTacToeBoard board, int playerToMove) {
+        long best = key(board, playerToMove, IDENTITY);
+        for (int s = 1; s < COUNT; s++) {
+            best = Math.min(best, key(board, playerToMove, s));
+        }
+        return best;
+    }
+
+    /**
+     * Returns a symmetry that maps the position to its canonical image,
+     * transformCell with it maps moves of the position to moves of the canonical image
+     * @param playerToMove The id of the player that makes the next move
+     */
+    public static int canonicalSymmetry(TicTacToeBoard board, int playerToMove) {
+        int best = IDENTITY;
+        long bestKey = key(board, playerToMove, IDENTITY);
+        for (int s = 1; s < COUNT; s++) {
+            long key = key(board, playerToMove, s);
+            if (key < bestKey) {
+                bestKey = key;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Hashes the image of a position under given symmetry
+     */
+    public static long key(TicTacToeBoard board, int playerToMove, int symmetry) {
+        checkBoard(board);
+        int[] cellMap = CELL_MAP[symmetry];
+        int[] maskMap = MASK_MAP[symmetry];
+        long key = playerToMove == 0 ? 0 : SIDE_KEY;
+        for (int microboard = 0; microboard < CELLS; microboard++) {
+            for (int player = 0; player < TicTacToeBoard.PLAYER_COUNT; player++) {
+                int mask = board.getMicroboardMask(player, microboard);
+                key ^= MASK_KEYS[((cellMap[microboard] * TicTacToeBoard.PLAYER_COUNT) + player) * MASKS + maskMap[mask]];
+            }
+        }
+        int active = board.getActiveMicroboard();
+        return key ^ ACTIVE_KEYS[active == TicTacToeBoard.EMPTY_CELL ? CELLS : cellMap[active]];
+    }
+
+    /**
+     * Maps a cell of the 9x9 board to the cell it ends up on under given symmetry
+     * @param cell Cell index (y * 9 + x)
+     */
+    public static int transformCell(int symmetry, int cell) {
+        int width = SIZE * SIZE;
+        int x = cell % width;
+        int y = cell / width;
+        int microboard = CELL_MAP[symmetry][(y / SIZE) * SIZE + x / SIZE];
+        int inner = CELL_MAP[symmetry][(y % SIZE) * SIZE + x % SIZE];
+        return ((microboard / SIZE) * SIZE + inner / SIZE) * width + (microboard % SIZE) * SIZE + inner % SIZE;
+    }
+
+    /**
+     * Maps a 9 bit mask of a 3x3 board under given symmetry
+     */
+    public static int transformMask(int symmetry, int mask) {
+        return MASK_MAP[symmetry][mask];
+    }
+
+    /**
+     * Returns the symmetry that undoes given symmetry
+     */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    private static void checkBoard(TicTacToeBoard board) {
+        if (board.getWidth() != CELLS || board.getHeight() != CELLS) {
+            throw new IllegalArgumentException("Symmetries are only defined for 9x9 boards");
+        }
+    }
+}
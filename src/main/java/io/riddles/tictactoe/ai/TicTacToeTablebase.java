@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TicTacToeTablebase holds solved late-game positions, as written by TicTacToeTablebaseGenerator.
+ * The file is memory mapped, lookups read it in place and allocate nothing on the heap.
+ *
+ * File layout (big endian):
+ * - header: magic, version, width, height, max empty cells, bucket bits, entry count
+ * - bucket table: 2^bucketBits + 1 ints, the first entry of every bucket
+ * - keys: entry count longs, Zobrist hashes sorted unsigned, so the top bits pick the bucket
+ * - values: entry count bytes, outcome (bits 6-7) and distance to the end in moves (bits 0-5)
+ *
+ * Outcomes are for the player to move.
+ */
+public class TicTacToeTablebase {
+
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+
+    static final int MAGIC = 0x55545442; /* "UTTB" */
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 1 + 1 + 1 + 1 + 1 + 4;
+
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final int maxEmptyCells;
+    private final int bucketBits;
+    private final int entryCount;
+    private final int keysOffset;
+    private final int valuesOffset;
+    private final TicTacToeZobrist zobrist;
+
+    public TicTacToeTablebase(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.buffer.getInt(0) != MAGIC || this.buffer.get(4) != VERSION) {
+            throw new IOException("Not a tablebase file: " + path);
+        }
+        this.width = this.buffer.get(5);
+        this.height = this.buffer.get(6);
+        this.maxEmptyCells = this.buffer.get(7);
+        this.bucketBits = this.buffer.get(8);
+        this.entryCount = this.buffer.getInt(9);
+        this.keysOffset = HEADER_SIZE + ((1 << this.bucketBits) + 1) * Integer.BYTES;
+        this.valuesOffset = this.keysOffset + this.entryCount * Long.BYTES;
+        if (this.buffer.capacity() != this.valuesOffset + this.entryCount) {
+            throw new IOException("Truncated tablebase file: " + path);
+        }
+        this.zobrist = new TicTacToeZobrist(this.width, this.height);
+    }
+
+    /**
+     * Looks up a position
+     * @param playerToMove The id of the player that makes the next move
+     * @return The encoded value, or NOT_FOUND
+     */
+    public int probe(TicTacToeBoard board, int playerToMove) {
+        if (board.getWidth() != this.width || board.getHeight() != this.height
+                || board.getPlayableCellCount() > this.maxEmptyCells) {
+            return NOT_FOUND;
+        }
+        return probe(this.zobrist.hash(board, playerToMove));
+    }
+
+    /**
+     * Looks up a position by its TicTacToeZobrist hash
+     * @return The encoded value, or NOT_FOUND
+     */
+    public int probe(long hash) {
+        int bucket = (int) (hash >>> (Long.SIZE - this.bucketBits));
+        int low = this.buffer.getInt(HEADER_SIZE + bucket * Integer.BYTES);
+        int high = this.buffer.getInt(HEADER_SIZE + (bucket + 1) * Integer.BYTES) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = Long.compareUnsigned(this.buffer.getLong(this.keysOffset + middle * Long.BYTES), hash);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return this.buffer.get(this.valuesOffset + middle) & 0xFF;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the winner of a position under perfect play
+     * @param playerToMove The id of the player that makes the next move
+     * @return The id of the winner, EMPTY_CELL for a draw, or null when the position is not in the table
+     */
+    public Integer getWinner(TicTacToeBoard board, int playerToMove) {
+        int value = probe(board, playerToMove);
+        if (value == NOT_FOUND) {
+            return null;
+        }
+        switch (getOutcome(value)) {
+            case WIN:
+                return playerToMove;
+            case LOSS:
+                return 1 - playerToMove;
+            default:
+                return TicTacToeBoard.EMPTY_CELL;
+        }
+    }
+
+    public int getMaxEmptyCells() {
+        return this.maxEmptyCells;
+    }
+
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    public static int getOutcome(int value) {
+        return value >>> 6;
+    }
+
+    /**
+     * @return Number of moves until the game ends under perfect play
+     */
+    public static int getDistance(int value) {
+        return value & 0x3F;
+    }
+
+    static int encode(int outcome, int distance) {
+        return outcome << 6 | Math.min(distance, 0x3F);
+    }
+
+    static void writeHeader(ByteBuffer header, int width, int height, int maxEmptyCells, int bucketBits, int entryCount) {
+        header.putInt(MAGIC);
+        header.put((byte) VERSION);
+        header.put((byte) width);
+        header.put((byte) height);
+        header.put((byte) maxEmptyCells);
+        header.put((byte) bucketBits);
+        header.putInt(entryCount);
+    }
+}
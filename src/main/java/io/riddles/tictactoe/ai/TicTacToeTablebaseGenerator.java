@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TicTacToeTablebaseGenerator solves late-game positions offline and writes them as a
+ * TicTacToeTablebase.
+ *
+ * The full set of positions with N empty cells is far too large to enumerate, so the
+ * generator starts from seed positions, usually taken from played games, and solves every
+ * position reachable from them once they have at most N empty cells. Each position is solved
+ * exactly from the values of its successors, with a win preferring the shortest and a loss
+ * the longest line, and positions reached along several lines are solved once.
+ *
+ * Empty cells are counted as in TicTacToeBoard.getPlayableCellCount: cells of microboards
+ * that are won or full can never be played, so they do not count.
+ */
+public class TicTacToeTablebaseGenerator {
+
+    private static final int TERMINAL = -2;
+
+    private final int width;
+    private final int height;
+    private final int maxEmptyCells;
+    private final TicTacToeZobrist zobrist;
+    private final Map<Long, Byte> solved = new HashMap<>();
+    private final int[][] moves;
+
+    /**
+     * @param maxEmptyCells Positions with at most this many empty cells are solved, at most 63
+     */
+    public TicTacToeTablebaseGenerator(int width, int height, int maxEmptyCells) {
+        if (maxEmptyCells > 63) {
+            throw new IllegalArgumentException("Tablebases hold at most 63 empty cells");
+        }
+        this.width = width;
+        this.height = height;
+        this.maxEmptyCells = maxEmptyCells;
+        this.zobrist = new TicTacToeZobrist(width, height);
+        this.moves = new int[maxEmptyCells + 1][width * height];
+    }
+
+    /**
+     * Adds the positions of a played game that have few enough empty cells
+     * @param initialState The first state of the game
+     */
+    public void addGame(TicTacToeState initialState) {
+        TicTacToeState state = initialState;
+        while (state != null) {
+            if (state.getMoveNumber() > 0
+                    && state.getPlayerStateById(state.getPlayerId()).getMove().getException() != null) {
+                break; /* The game ended on an illegal move */
+            }
+            addPosition(state.getBoard(), TicTacToeSearch.getPlayerToMove(state));
+            state = state.hasNextState() ? (TicTacToeState) state.getNextState() : null;
+        }
+    }
+
+    /**
+     * Solves a position and every position reachable from it, if it has few enough empty cells
+     * @param playerToMove The id of the player that makes the next move
+     */
+    public void addPosition(TicTacToeBoard board, int playerToMove) {
+        if (board.getPlayableCellCount() > this.maxEmptyCells) {
+            return;
+        }
+        TicTacToeBoard copy = new TicTacToeBoard(board);
+        solve(copy, playerToMove, this.zobrist.hash(copy, playerToMove));
+    }
+
+    public int getPositionCount() {
+        return this.solved.size();
+    }
+
+    private int solve(TicTacToeBoard board, int player, long hash) {
+        if (board.getMacroboardWinnerId() != TicTacToeBoard.EMPTY_CELL) {
+            return TicTacToeTablebase.encode(TicTacToeTablebase.LOSS, 0);
+        }
+        if (board.boardIsFull() || board.macroboardIsFull()) {
+            return TicTacToeTablebase.encode(TicTacToeTablebase.DRAW, 0);
+        }
+        Byte known = this.solved.get(hash);
+        if (known != null) {
+            return known & 0xFF;
+        }
+
+        int[] plyMoves = this.moves[board.getPlayableCellCount()];
+        int count = board.getLegalMoves(plyMoves);
+        int bestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean draw = false;
+        for (int i = 0; i < count; i++) {
+            int move = plyMoves[i];
+            int previousActive = board.getActiveMicroboard();
+            board.makeMove(move % this.width, move / this.width, player);
+            long childHash = hash ^ this.zobrist.cellKey(player, move)
+                    ^ this.zobrist.activeKey(previousActive)
+                    ^ this.zobrist.activeKey(board.getActiveMicroboard())
+                    ^ this.zobrist.sideKey(1);
+            int child = solve(board, 1 - player, childHash);
+            board.unmakeMove();
+
+            int distance = TicTacToeTablebase.getDistance(child) + 1;
+            switch (TicTacToeTablebase.getOutcome(child)) {
+                case TicTacToeTablebase.LOSS:
+                    bestWin = Math.min(bestWin, distance);
+                    break;
+                case TicTacToeTablebase.WIN:
+                    longestLoss = Math.max(longestLoss, distance);
+                    break;
+                default:
+                    draw = true;
+            }
+        }
+
+        int value;
+        if (bestWin != Integer.MAX_VALUE) {
+            value = TicTacToeTablebase.encode(TicTacToeTablebase.WIN, bestWin);
+        } else if (draw) {
+            value = TicTacToeTablebase.encode(TicTacToeTablebase.DRAW, 0);
+        } else {
+            /* Without legal moves the player has to make an illegal move, and loses */
+            value = TicTacToeTablebase.encode(TicTacToeTablebase.LOSS, Math.max(longestLoss, 0));
+        }
+        this.solved.put(hash, (byte) value);
+        return value;
+    }
+
+    /**
+     * Writes all solved positions as a tablebase file
+     */
+    public void write(Path path) throws IOException {
+        int entryCount = this.solved.size();
+        int bucketBits = Math.max(1, Math.min(24, 32 - Integer.numberOfLeadingZeros(entryCount)));
+        long[] keys = new long[entryCount];
+        int k = 0;
+        for (long key : this.solved.keySet()) {
+            keys[k++] = key ^ Long.MIN_VALUE; /* Flip the sign bit, so a signed sort is an unsigned sort */
+        }
+        Arrays.sort(keys);
+
+        int bucketCount = 1 << bucketBits;
+        ByteBuffer table = ByteBuffer.allocate(TicTacToeTablebase.HEADER_SIZE + (bucketCount + 1) * Integer.BYTES
+                + entryCount * (Long.BYTES + 1));
+        TicTacToeTablebase.writeHeader(table, this.width, this.height, this.maxEmptyCells, bucketBits, entryCount);
+        int entry = 0;
+        for (int bucket = 0; bucket <= bucketCount; bucket++) {
+            while (entry < entryCount && (int) ((keys[entry] ^ Long.MIN_VALUE) >>> (Long.SIZE - bucketBits)) < bucket) {
+                entry++;
+            }
+            table.putInt(entry);
+        }
+        for (long key : keys) {
+            table.putLong(key ^ Long.MIN_VALUE);
+        }
+        for (long key : keys) {
+            table.put(this.solved.get(key ^ Long.MIN_VALUE));
+        }
+        table.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (table.hasRemaining()) {
+                channel.write(table);
+            }
+        }
+    }
+}
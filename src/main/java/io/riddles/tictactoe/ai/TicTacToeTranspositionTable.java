@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import java.util.Arrays;
+
+/**
+ * TicTacToeTranspositionTable is a fixed-size, open-addressed hash table of search results.
+ * Every entry is two longs: the hash xor'ed with the data, and the data itself. A reader
+ * only accepts an entry when both halves belong together, so searches on several threads
+ * can share one table without locks: an entry torn by concurrent writes reads as a miss.
+ *
+ * Data layout: score (bits 0-15), depth (16-23), bound (24-25), best move + 1 (32-47).
+ */
+public class TicTacToeTranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    private static final int PROBE_LENGTH = 4;
+
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param sizeBits The table holds 2^sizeBits entries of 16 bytes
+     */
+    public TicTacToeTranspositionTable(int sizeBits) {
+        this.entries = new long[2 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Looks up a position
+     * @return The data of the entry, or 0 when the position is not in the table
+     */
+    public long probe(long hash) {
+        int index = (int) hash & this.mask;
+        for (int i = 0; i < PROBE_LENGTH; i++) {
+            int slot = ((index + i) & this.mask) * 2;
+            long data = this.entries[slot + 1];
+            if ((this.entries[slot] ^ data) == hash && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result, in the slot of the same position if there is one,
+     * or else over the shallowest entry near the home slot
+     */
+    public void store(long hash, int score, int depth, int bound, int bestMove) {
+        long data = (score & 0xFFFFL) | (long) (depth & 0xFF) << 16 | (long) bound << 24
+                | (long) ((bestMove + 1) & 0xFFFF) << 32;
+        int index = (int) hash & this.mask;
+        int target = index * 2;
+        int shallowest = Integer.MAX_VALUE;
+        for (int i = 0; i < PROBE_LENGTH; i++) {
+            int slot = ((index + i) & this.mask) * 2;
+            long existing = this.entries[slot + 1];
+            if ((this.entries[slot] ^ existing) == hash) {
+                target = slot;
+                break;
+            }
+            if (getDepth(existing) < shallowest) {
+                shallowest = getDepth(existing);
+                target = slot;
+            }
+        }
+        this.entries[target] = hash ^ data;
+        this.entries[target + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(this.entries, 0);
+    }
+
+    public static int getScore(long data) {
+        return (short) data;
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    public static int getBound(long data) {
+        return (int) (data >>> 24) & 0x3;
+    }
+
+    /**
+     * @return The best move as cell index, or -1 when none was stored
+     */
+    public static int getBestMove(long data) {
+        return (int) ((data >>> 32) & 0xFFFF) - 1;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+import java.util.Random;
+
+/**
+ * TicTacToeZobrist holds the random keys to hash positions: one per player per cell,
+ * one per active microboard (including "any microboard") and one for the player to move.
+ * The hash of a position is the xor of the keys that apply, so a move updates it with
+ * a few xors instead of rehashing the board. The keys come from a fixed seed, so hashes are
+ * the same in every run and can be stored, as TicTacToeTablebase does.
+ */
+public class TicTacToeZobrist {
+
+    private final long[] cellKeys;
+    private final long[] activeKeys;
+    private final long sideKey;
+    private final int cellCount;
+
+    public TicTacToeZobrist(int width, int height) {
+        Random random = new Random(0x5EED);
+        this.cellCount = width * height;
+        this.cellKeys = new long[TicTacToeBoard.PLAYER_COUNT * this.cellCount];
+        this.activeKeys = new long[width + 1]; /* N * N microboards on an N * N by N * N board, and EMPTY_CELL */
+        for (int i = 0; i < this.cellKeys.length; i++) {
+            this.cellKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < this.activeKeys.length; i++) {
+            this.activeKeys[i] = random.nextLong();
+        }
+        this.sideKey = random.nextLong();
+    }
+
+    /**
+     * Hashes a position from scratch
+     * @param playerToMove The id of the player that makes the next move
+     */
+    public long hash(TicTacToeBoard board, int playerToMove) {
+        long hash = activeKey(board.getActiveMicroboard()) ^ sideKey(playerToMove);
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                int cell = board.getCell(x, y);
+                if (cell != TicTacToeBoard.EMPTY_CELL) {
+                    hash ^= cellKey(cell, y * board.getWidth() + x);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param cell Cell index (y * width + x)
+     */
+    public long cellKey(int playerId, int cell) {
+        return this.cellKeys[playerId * this.cellCount + cell];
+    }
+
+    /**
+     * @param activeMicroboard Microboard index, or EMPTY_CELL when any open microboard may be played
+     */
+    public long activeKey(int activeMicroboard) {
+        return this.activeKeys[activeMicroboard + 1];
+    }
+
+    public long sideKey(int playerToMove) {
+        return playerToMove == 0 ? 0 : this.sideKey;
+    }
+}
@@ -25,14 +25,23 @@ import io.riddles.javainterface.engine.TurnBasedGameLoop;
 import io.riddles.javainterface.exception.TerminalException;
 import io.riddles.javainterface.game.player.PlayerProvider;
 import io.riddles.javainterface.io.IOHandler;
+import io.riddles.tictactoe.ai.TicTacToeTablebase;
 import io.riddles.tictactoe.game.TicTacToeSerializer;
 import io.riddles.tictactoe.game.data.TicTacToeBoard;
 import io.riddles.tictactoe.game.player.TicTacToePlayer;
+import io.riddles.tictactoe.game.processor.TicTacToeAdjudicator;
 import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
+import io.riddles.tictactoe.game.processor.TicTacToeTimebank;
+import io.riddles.tictactoe.game.processor.UpdateMode;
+import io.riddles.tictactoe.game.record.TicTacToeRecordWriter;
 import io.riddles.tictactoe.game.state.TicTacToePlayerState;
 import io.riddles.tictactoe.game.state.TicTacToeState;
+import io.riddles.tictactoe.metrics.TicTacToeMetrics;
 import io.riddles.javainterface.engine.AbstractEngine;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 /**
@@ -47,6 +56,11 @@ import java.util.ArrayList;
  */
 public class TicTacToeEngine extends AbstractEngine<TicTacToeProcessor, TicTacToePlayer, TicTacToeState> {
 
+    private TicTacToeRecordWriter recordWriter;
+    private TicTacToeTablebase tablebase;
+    private Path metricsFile;
+    private TicTacToeMetrics metrics;
+
     public TicTacToeEngine(PlayerProvider<TicTacToePlayer> playerProvider, IOHandler ioHandler) throws TerminalException {
         super(playerProvider, ioHandler);
     }
@@ -56,18 +70,44 @@ public class TicTacToeEngine extends AbstractEngine<TicTacToeProcessor, TicTacTo
         Configuration cc = new Configuration();
         cc.put("fieldWidth", 9);
         cc.put("fieldHeight", 9);
+        cc.put("lineLength", 0); /* Stones in a row that win, 0 for a full row of a microboard */
+        cc.put("presentation", 1); /* 0 skips the presentation strings, for engines that run headless */
+        cc.put("adjudication", 0); /* 1 ends games that can only end in a draw */
+        cc.put("updateMode", 0); /* 1 sends bots only the last move instead of the whole board */
+        cc.put("timebankMax", 0); /* Milliseconds, 0 leaves the time controls to the wrapper */
+        cc.put("timePerMove", 100);
+        cc.put("maxTimeouts", 0);
         return cc;
     }
 
     @Override
     protected TicTacToePlayer createPlayer(int id) {
-        return new TicTacToePlayer(id);
+        TicTacToePlayer player = new TicTacToePlayer(id);
+        player.setMetrics(this.metrics);
+        return player;
     }
 
     @Override
     protected TicTacToeProcessor createProcessor() {
 
-        return new TicTacToeProcessor(playerProvider);
+        TicTacToeProcessor processor = new TicTacToeProcessor(playerProvider, configuration.getInt("presentation") != 0);
+        processor.setUpdateMode(UpdateMode.fromCode(configuration.getInt("updateMode")));
+        if (configuration.getInt("timebankMax") > 0) {
+            processor.setTimebank(new TicTacToeTimebank(configuration.getInt("timebankMax"),
+                    configuration.getInt("timePerMove"), configuration.getInt("maxTimeouts")));
+        }
+        if (this.metricsFile != null) {
+            this.metrics = new TicTacToeMetrics();
+            processor.setMetrics(this.metrics);
+            for (TicTacToePlayer player : this.playerProvider.getPlayers()) {
+                player.setMetrics(this.metrics);
+            }
+        }
+        boolean deadDraws = configuration.getInt("adjudication") != 0;
+        if (deadDraws || this.tablebase != null) {
+            processor.setAdjudicator(new TicTacToeAdjudicator(deadDraws, this.tablebase));
+        }
+        return processor;
     }
 
     @Override
@@ -79,12 +119,86 @@ public class TicTacToeEngine extends AbstractEngine<TicTacToeProcessor, TicTacTo
     @Override
     protected void sendSettingsToPlayer(TicTacToePlayer player) {
         player.sendSetting("your_botid", player.getId());
+        if (configuration.getInt("lineLength") > 0) {
+            player.sendSetting("line_length", configuration.getInt("lineLength"));
+        }
+
+        UpdateMode updateMode = UpdateMode.fromCode(configuration.getInt("updateMode"));
+        if (updateMode != UpdateMode.FULL) {
+            player.sendSetting("update_mode", updateMode.getName());
+        }
+    }
+
+    /**
+     * Stores every played game as a binary record as well, next to the JSON output
+     * @param recordWriter Writer of the archive, or null to stop recording
+     */
+    public void setRecordWriter(TicTacToeRecordWriter recordWriter) {
+        this.recordWriter = recordWriter;
+    }
+
+    /**
+     * Ends games early once they reach a position solved in the tablebase,
+     * must be set before the game runs
+     * @param tablebase The tablebase, or null to play every game out
+     */
+    public void setTablebase(TicTacToeTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Records latencies and rejected moves during the game, and writes them to given file
+     * when the game has run, must be set before the game runs
+     * @param metricsFile The file, Prometheus text when it ends with .prom or .txt and JSON
+     *                    otherwise, or null to not record metrics
+     */
+    public void setMetricsFile(Path metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    public TicTacToeMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public void didRun(TicTacToeState initialState, TicTacToeState finalState) {
+        super.didRun(initialState, finalState);
+        if (this.metrics != null) {
+            try {
+                this.metrics.write(this.metricsFile);
+            } catch (IOException ex) {
+                System.err.println("Failed to write metrics: " + ex.getMessage());
+            }
+        }
     }
 
     @Override
     protected String getPlayedGame(TicTacToeState initialState) {
+        if (this.recordWriter != null) {
+            try {
+                this.recordWriter.write(this.processor, initialState);
+            } catch (IOException ex) {
+                System.err.println("Failed to write match record: " + ex.getMessage());
+            }
+        }
+
+        long start = System.nanoTime();
         TicTacToeSerializer serializer = new TicTacToeSerializer();
-        return serializer.traverseToString(this.processor, initialState);
+        String playedGame = serializer.traverseToString(this.processor, initialState);
+        if (this.metrics != null) {
+            this.metrics.histogram(TicTacToeMetrics.SERIALIZE).recordSince(start);
+        }
+        return playedGame;
+    }
+
+    /**
+     * Streams the played game to given writer instead of building it as one String
+     * @param initialState The first state of the game
+     * @param writer Writer to stream the game to, it is not closed
+     */
+    public void writePlayedGame(TicTacToeState initialState, Writer writer) throws IOException {
+        TicTacToeSerializer serializer = new TicTacToeSerializer();
+        serializer.traverseToWriter(this.processor, initialState, writer);
     }
 
     @Override
@@ -92,7 +206,11 @@ public class TicTacToeEngine extends AbstractEngine<TicTacToeProcessor, TicTacTo
         int fieldWidth = configuration.getInt("fieldWidth");
         int fieldHeight = configuration.getInt("fieldHeight");
 
-        TicTacToeBoard board = new TicTacToeBoard(fieldWidth, fieldHeight);
+        int lineLength = configuration.getInt("lineLength");
+
+        TicTacToeBoard board = lineLength > 0
+                ? new TicTacToeBoard(fieldWidth, fieldHeight, lineLength)
+                : new TicTacToeBoard(fieldWidth, fieldHeight);
 
         ArrayList<TicTacToePlayerState> playerStates = new ArrayList<>();
 
@@ -100,11 +218,11 @@ public class TicTacToeEngine extends AbstractEngine<TicTacToeProcessor, TicTacTo
             TicTacToePlayerState playerState = new TicTacToePlayerState(player.getId());
             playerStates.add(playerState);
         }
-        TicTacToeState s = new TicTacToeState(null, playerStates, 0, 0);
+        TicTacToeState s = new TicTacToeState(board, playerStates);
 
-        s.setBoard(board);
-        s.setFieldPresentationString("0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0");
-        s.setPossibleMovesPresentationString("4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4,4");
+        if (configuration.getInt("presentation") != 0) {
+            s.setPresentation(1); /* Player 0 moves first, so render as if player 1 just moved */
+        }
 
         return s;
     }
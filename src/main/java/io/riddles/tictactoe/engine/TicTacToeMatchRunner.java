@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.engine;
+
+import io.riddles.javainterface.game.player.PlayerProvider;
+import io.riddles.tictactoe.game.TicTacToeSerializer;
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.move.MoveError;
+import io.riddles.tictactoe.game.move.TicTacToeMove;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+import io.riddles.tictactoe.game.player.TicTacToePlayer;
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
+import io.riddles.tictactoe.game.state.TicTacToePlayerState;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TicTacToeMatchRunner plays a match between TicTacToeBots inside the current JVM.
+ * It drives a TicTacToeProcessor the way TurnBasedGameLoop does, with the players taking
+ * turns in order of their id, but without the wrapper: no processes are started and no
+ * updates or moves are encoded as text.
+ *
+ * A runner plays a single match and keeps no global state, so many runners can be used
+ * side by side.
+ */
+public class TicTacToeMatchRunner {
+
+    private final List<TicTacToeBot> bots;
+    private final int fieldWidth;
+    private final int fieldHeight;
+    private final TicTacToeProcessor processor;
+    private int lineLength;
+
+    private TicTacToeState initialState;
+    private TicTacToeState finalState;
+
+    /**
+     * Creates a headless runner for a match between two bots on the default 9x9 field.
+     */
+    public TicTacToeMatchRunner(TicTacToeBot bot0, TicTacToeBot bot1) {
+        this(listOf(bot0, bot1), 9, 9, false);
+    }
+
+    /**
+     * @param bots The bots, the index in the list is the id of the bot
+     * @param fieldWidth Width of the field
+     * @param fieldHeight Height of the field
+     * @param presentationEnabled True to keep what is needed to serialize the game afterwards
+     */
+    public TicTacToeMatchRunner(List<TicTacToeBot> bots, int fieldWidth, int fieldHeight, boolean presentationEnabled) {
+        this.bots = new ArrayList<>(bots);
+        this.fieldWidth = fieldWidth;
+        this.fieldHeight = fieldHeight;
+
+        PlayerProvider<TicTacToePlayer> playerProvider = new PlayerProvider<>();
+        for (int id = 0; id < this.bots.size(); id++) {
+            playerProvider.add(new TicTacToePlayer(id));
+        }
+        this.processor = new TicTacToeProcessor(playerProvider, presentationEnabled);
+    }
+
+    /**
+     * @param lineLength Stones in a row needed to win, or 0 for a full row of a microboard
+     */
+    public void setLineLength(int lineLength) {
+        this.lineLength = lineLength;
+    }
+
+    /**
+     * Plays the match until the processor says the game has ended
+     * @return The final state of the game
+     */
+    public TicTacToeState run() {
+        ArrayList<TicTacToePlayerState> playerStates = new ArrayList<>();
+        for (int id = 0; id < this.bots.size(); id++) {
+            playerStates.add(new TicTacToePlayerState(id));
+        }
+        TicTacToeBoard board = this.lineLength > 0
+                ? new TicTacToeBoard(this.fieldWidth, this.fieldHeight, this.lineLength)
+                : new TicTacToeBoard(this.fieldWidth, this.fieldHeight);
+        this.initialState = new TicTacToeState(board, playerStates);
+        if (this.processor.isPresentationEnabled()) {
+            this.initialState.setPresentation(1); /* Player 0 moves first, so render as if player 1 just moved */
+        }
+
+        TicTacToeState state = this.initialState;
+        int roundNumber = 1;
+        while (true) {
+            for (int id = 0; id < this.bots.size(); id++) {
+                long start = System.nanoTime();
+                TicTacToeMove move = requestMove(state, id);
+                long responseTime = (System.nanoTime() - start) / 1000000;
+                state = this.processor.createNextStateFromMove(state, id, move, roundNumber, responseTime);
+                if (this.processor.hasGameEnded(state)) {
+                    this.finalState = state;
+                    return state;
+                }
+            }
+            roundNumber++;
+        }
+    }
+
+    private TicTacToeMove requestMove(TicTacToeState state, int botId) {
+        int cell;
+        try {
+            cell = this.bots.get(botId).getMove(new TicTacToeBoard(state.getBoard()), botId);
+        } catch (RuntimeException ex) {
+            return new TicTacToeMove(MoveError.UNPARSABLE.toException());
+        }
+        int x = cell >= 0 ? cell % this.fieldWidth : -1;
+        int y = cell >= 0 ? cell / this.fieldWidth : -1;
+        return new TicTacToeMove(Coordinate.of(x, y));
+    }
+
+    /**
+     * @return The id of the winner of the played match, or null for a draw
+     */
+    public Integer getWinnerId() {
+        return this.processor.getWinnerId(this.finalState);
+    }
+
+    public TicTacToeState getInitialState() {
+        return this.initialState;
+    }
+
+    public TicTacToeState getFinalState() {
+        return this.finalState;
+    }
+
+    public TicTacToeProcessor getProcessor() {
+        return this.processor;
+    }
+
+    /**
+     * Streams the played match in the replay format of the engine,
+     * the runner must have been created with presentation enabled
+     */
+    public void writePlayedGame(Writer writer) throws IOException {
+        new TicTacToeSerializer().traverseToWriter(this.processor, this.initialState, writer);
+    }
+
+    private static List<TicTacToeBot> listOf(TicTacToeBot bot0, TicTacToeBot bot1) {
+        List<TicTacToeBot> bots = new ArrayList<>();
+        bots.add(bot0);
+        bots.add(bot1);
+        return bots;
+    }
+}
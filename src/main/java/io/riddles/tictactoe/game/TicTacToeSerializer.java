@@ -19,6 +19,7 @@
 
 package io.riddles.tictactoe.game;
 
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
 import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
 import io.riddles.tictactoe.game.state.TicTacToeState;
 import io.riddles.tictactoe.game.state.TicTacToeStateSerializer;
@@ -27,44 +28,97 @@ import org.json.JSONObject;
 
 import io.riddles.javainterface.game.AbstractGameSerializer;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
 /**
  * TicTacToeSerializer takes a TicTacToeState and serialises it and all previous states into a JSON String.
  * Customize this to add all game specific data to the output.
  *
+ * The states are streamed one by one while walking the state chain, so no JSON tree of the
+ * whole game is built.
+ *
  * @author jim
  */
 public class TicTacToeSerializer extends AbstractGameSerializer<TicTacToeProcessor, TicTacToeState> {
 
+    private static final String STATES_KEY = "\"states\":[";
+
     public TicTacToeSerializer() {
         super();
     }
 
     @Override
     public String traverseToString(TicTacToeProcessor processor, TicTacToeState initialState) {
+        StringWriter writer = new StringWriter();
+        try {
+            traverseToWriter(processor, initialState, writer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); /* StringWriter does not throw */
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the same JSON as traverseToString to given writer, one state at a time.
+     * @param processor The processor that played the game
+     * @param initialState The first state of the game
+     * @param writer Writer to stream the game to, it is not closed
+     */
+    public void traverseToWriter(TicTacToeProcessor processor, TicTacToeState initialState,
+                                 Writer writer) throws IOException {
         JSONObject game = new JSONObject();
 
         game = addDefaultJSON(initialState, game, processor);
+        addLineLength(initialState, game);
+        game.put("states", new JSONArray());
+
+        /* Write the game with an empty states array around the streamed states,
+         * so the order of the other keys stays the same as in a fully built game */
+        String skeleton = game.toString();
+        int statesStart = skeleton.indexOf(STATES_KEY) + STATES_KEY.length();
+        writer.write(skeleton, 0, statesStart);
 
-        JSONArray states = new JSONArray();
         TicTacToeState state = initialState;
 
         TicTacToeStateSerializer stateSerializer = new TicTacToeStateSerializer();
 
-        states.put(stateSerializer.traverseToJson(state, false));
-        states.put(stateSerializer.traverseToJson(state, true));
+        stateSerializer.traverseToJson(state, false).write(writer);
+        writer.write(',');
+        stateSerializer.traverseToJson(state, true).write(writer);
 
         while (state.hasNextState()) {
             state = (TicTacToeState)state.getNextState();
 
-            states.put(stateSerializer.traverseToJson(state, false));
+            writer.write(',');
+            stateSerializer.traverseToJson(state, false).write(writer);
             if (state.hasNextState()) {
-                states.put(stateSerializer.traverseToJson(state, true));
+                writer.write(',');
+                stateSerializer.traverseToJson(state, true).write(writer);
             }
         }
 
-        game.put("states", states);
+        writer.write(skeleton, statesStart, skeleton.length() - statesStart);
+        writer.flush();
+    }
 
-        return game.toString();
+    /**
+     * Adds the line length to the settings when it is shorter than a microboard row,
+     * replays of games on the full rows stay as they were
+     */
+    private void addLineLength(TicTacToeState initialState, JSONObject game) {
+        TicTacToeBoard board = initialState.getBoard();
+        if (board.getLineLength() == board.getMicroboardSize()) {
+            return;
+        }
+        JSONObject settings = game.optJSONObject("settings");
+        if (settings == null) {
+            settings = new JSONObject();
+            game.put("settings", settings);
+        }
+        settings.put("line_length", board.getLineLength());
     }
 }
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.data;
+
+/**
+ * Coordinate is an immutable cell position on the board, a plain value type
+ * that stands in for java.awt.Point so the engine does not load AWT.
+ *
+ * Coordinates on boards of up to MAX_CACHED cells wide and high, the largest board
+ * TicTacToeGeometry supports, are shared instances, so of() does not allocate for
+ * any move that can be on the board.
+ */
+public final class Coordinate {
+
+    private static final int MAX_CACHED = TicTacToeGeometry.MAX_SIZE * TicTacToeGeometry.MAX_SIZE;
+    private static final Coordinate[] CACHE = new Coordinate[MAX_CACHED * MAX_CACHED];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new Coordinate(i % MAX_CACHED, i / MAX_CACHED);
+        }
+    }
+
+    public final int x;
+    public final int y;
+
+    public Coordinate(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Returns the coordinate (x, y), a shared instance when it is in the cached range
+     */
+    public static Coordinate of(int x, int y) {
+        if (x >= 0 && y >= 0 && x < MAX_CACHED && y < MAX_CACHED) {
+            return CACHE[y * MAX_CACHED + x];
+        }
+        return new Coordinate(x, y);
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Coordinate)) {
+            return false;
+        }
+        Coordinate other = (Coordinate) o;
+        return this.x == other.x && this.y == other.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.x + this.y;
+    }
+
+    @Override
+    public String toString() {
+        return "Coordinate[x=" + this.x + ",y=" + this.y + "]";
+    }
+}
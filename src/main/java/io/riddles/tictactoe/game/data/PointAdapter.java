@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.data;
+
+import io.riddles.tictactoe.game.move.TicTacToeMove;
+
+import java.awt.Point;
+
+/**
+ * PointAdapter keeps the java.awt.Point versions of the board and move methods for code
+ * written against them. The engine itself only uses Coordinate, so AWT is only loaded
+ * when this class is used.
+ */
+@Deprecated
+public final class PointAdapter {
+
+    private PointAdapter() {}
+
+    public static Coordinate toCoordinate(Point p) {
+        return p != null ? Coordinate.of(p.x, p.y) : null;
+    }
+
+    public static Point toPoint(Coordinate c) {
+        return c != null ? new Point(c.x, c.y) : null;
+    }
+
+    public static String getFieldAt(TicTacToeBoard board, Point c) {
+        return board.getFieldAt(toCoordinate(c));
+    }
+
+    public static void setFieldAt(TicTacToeBoard board, Point c, String v) {
+        board.setFieldAt(toCoordinate(c), v);
+    }
+
+    public static String getMacroboardFieldAt(TicTacToeBoard board, Point c) {
+        return board.getMacroboardFieldAt(toCoordinate(c));
+    }
+
+    public static void setMacroboardFieldAt(TicTacToeBoard board, Point c, String v) {
+        board.setMacroboardFieldAt(toCoordinate(c), v);
+    }
+
+    public static String macroboardToString(TicTacToeBoard board, Point lastMove) {
+        return board.macroboardToString(toCoordinate(lastMove));
+    }
+
+    public static void updateMacroboard(TicTacToeBoard board, Point lastMove) {
+        board.updateMacroboard(toCoordinate(lastMove));
+    }
+
+    public static TicTacToeMove createMove(Point c) {
+        return new TicTacToeMove(toCoordinate(c));
+    }
+
+    public static Point getCoordinate(TicTacToeMove move) {
+        return toPoint(move.getCoordinate());
+    }
+}
@@ -19,55 +19,120 @@
 
 package io.riddles.tictactoe.game.data;
 
-import java.awt.*;
-import java.util.Objects;
+import java.util.Arrays;
 
+/**
+ * TicTacToeBoard stores the stones of both players as bitmasks. The board is N x N
+ * microboards of N x N cells, 3 for the classic game and up to TicTacToeGeometry.MAX_SIZE.
+ * Every microboard is an N * N bit mask per player (bit = cellY * N + cellX), the macroboard
+ * keeps a mask of won microboards per player and a mask of the microboards that are available
+ * for the next move. Microboards and the macroboard are won with getLineLength() in a row,
+ * which is checked against the precomputed lines of a TicTacToeGeometry instead of comparing
+ * cells one by one.
+ *
+ * The macroboard is maintained incrementally: placing a stone only re-evaluates the
+ * microboard it was placed in, and per-microboard fill counters keep track of full
+ * microboards, so updateMacroboard only has to pick the next active microboard.
+ *
+ * Copies are copy-on-write: a copy shares the mask arrays with the board it was made
+ * from until either of them changes a cell, so the snapshot every TicTacToeState takes
+ * of the previous board costs O(1).
+ *
+ * The int API (getCell, setCell, ...) works on player ids and EMPTY_CELL and does not
+ * allocate. The String API (getFieldAt, macroboardToString, ...) is a view on the same
+ * data and is kept for the wrapper protocol. Cells are addressed with Coordinate, the
+ * java.awt.Point versions of these methods moved to PointAdapter.
+ */
 public class TicTacToeBoard {
-    private String[][] field;
-    private String[][] macroboard;
+    private int[] microboards;
+    private int[] macroboard;
+    private int[] filledCells;
+    private int closedMicroboards;
+    private int availableMicroboards;
+    private int activeMicroboard;
+    private int emptyCells;
+    private boolean shared;
+    private int[] undoStack;
+    private int undoSize;
 
     private int width = 9;
     private int height = 9;
+    private int macroWidth;
+    private int macroHeight;
+    private TicTacToeGeometry geometry;
+    private int microboardCells;
 
     public static final String EMPTY_FIELD = ".";
     public static final String AVAILABLE_FIELD = "-1";
+    public static final int EMPTY_CELL = -1;
+    public static final int PLAYER_COUNT = 2;
 
+    private static final String[] PLAYER_FIELDS = { "0", "1" };
+    private static final int UNDO_ENTRY_SIZE = 4; /* cell, previous active microboard, previous available mask, captured microboard */
+
+    /**
+     * Creates an empty board of w x h cells where every line of a microboard wins it
+     * @throws IllegalArgumentException when the board is not N * N by N * N cells, see TicTacToeGeometry
+     */
     public TicTacToeBoard(int w, int h) {
+        this(w, h, TicTacToeGeometry.getSize(w, h));
+    }
+
+    /**
+     * Creates an empty board of w x h cells
+     * @param lineLength Stones in a row needed to win a microboard, and microboards to win the game
+     * @throws IllegalArgumentException when the board or the line length are not supported
+     */
+    public TicTacToeBoard(int w, int h, int lineLength) {
         this.width = w;
         this.height = h;
-        this.field = new String[w][h];
-        this.macroboard = new String[w / 3][h / 3];
+        setGeometry(TicTacToeGeometry.of(TicTacToeGeometry.getSize(w, h), lineLength));
+        this.microboards = new int[PLAYER_COUNT * this.macroWidth * this.macroHeight];
+        this.macroboard = new int[PLAYER_COUNT];
+        this.filledCells = new int[this.macroWidth * this.macroHeight];
         clearBoard();
     }
 
     public TicTacToeBoard(TicTacToeBoard board) {
-        this.width = board.getWidth();
-        this.height = board.getHeight();
-        this.field = new String[this.width][this.height];
-        this.macroboard = new String[this.width / 3][this.height / 3];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                this.field[x][y] = board.getFieldAt(new Point(x,y));
-            }
-        }
-        for (int x = 0; x < width / 3; x++) {
-            for (int y = 0; y < height / 3; y++) {
-                this.macroboard[x][y] = board.getMacroboardFieldAt(new Point(x,y));
-            }
-        }
+        this.width = board.width;
+        this.height = board.height;
+        this.macroWidth = board.macroWidth;
+        this.macroHeight = board.macroHeight;
+        this.geometry = board.geometry;
+        this.microboardCells = board.microboardCells;
+        this.microboards = board.microboards;
+        this.macroboard = board.macroboard;
+        this.filledCells = board.filledCells;
+        this.shared = true;
+        board.shared = true;
+        this.closedMicroboards = board.closedMicroboards;
+        this.availableMicroboards = board.availableMicroboards;
+        this.activeMicroboard = board.activeMicroboard;
+        this.emptyCells = board.emptyCells;
+    }
+
+    private void setGeometry(TicTacToeGeometry geometry) {
+        this.geometry = geometry;
+        this.microboardCells = geometry.getCellCount();
+        this.macroWidth = geometry.getSize();
+        this.macroHeight = geometry.getSize();
     }
 
     private void clearBoard() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                field[x][y] = EMPTY_FIELD;
-            }
+        for (int i = 0; i < this.microboards.length; i++) {
+            this.microboards[i] = 0;
         }
-        for (int x = 0; x < width / 3; x++) {
-            for (int y = 0; y < height / 3; y++) {
-                macroboard[x][y] = AVAILABLE_FIELD;
-            }
+        for (int i = 0; i < PLAYER_COUNT; i++) {
+            this.macroboard[i] = 0;
         }
+        for (int i = 0; i < this.filledCells.length; i++) {
+            this.filledCells[i] = 0;
+        }
+        this.closedMicroboards = 0;
+        this.availableMicroboards = allMicroboards();
+        this.activeMicroboard = EMPTY_CELL;
+        this.emptyCells = this.filledCells.length * this.microboardCells;
+        this.undoSize = 0;
     }
 
     /**
@@ -83,7 +148,7 @@ public class TicTacToeBoard {
                 if (counter > 0) {
                     r.append(",");
                 }
-                r.append(field[x][y]);
+                r.append(getFieldAt(x, y));
                 counter++;
             }
         }
@@ -103,30 +168,42 @@ public class TicTacToeBoard {
      * | |_____________ Reserved
      * |_______________ Reserved
      */
-    public String toPresentationString(int nextPlayer, Boolean showPossibleMoves) { /* TODO: this forces bot ids 0 and 1*/
+    public String toPresentationString(int nextPlayer, Boolean showPossibleMoves) {
+        return toPresentationString(nextPlayer, showPossibleMoves, this.availableMicroboards);
+    }
+
+    /**
+     * Creates the presentation string with the given mask of available microboards
+     * instead of the current one, so it can be rendered after the board moved on.
+     * @see #toPresentationString(int, Boolean)
+     */
+    public String toPresentationString(int nextPlayer, boolean showPossibleMoves, int availableMicroboards) { /* TODO: this forces bot ids 0 and 1*/
         StringBuilder r = new StringBuilder();
         int counter = 0;
         for (int y = 0; y < this.height; y++) {
             for (int x = 0; x < this.width; x++) {
+                int cell = getCell(x, y);
                 int b = 0;
-                if (field[x][y].equals("0")) {
+                if (cell == 0) {
                     b = b | (1 << 0);
                 }
-                if (field[x][y].equals("1")) {
+                if (cell == 1) {
                     b = b | (1 << 1);
                 }
-                if (showPossibleMoves) {
-                    if (isInActiveMicroboard(x, y) && nextPlayer == 1 && field[x][y].equals(EMPTY_FIELD)) {
+                int microboard = getMicroboardIndex(x, y);
+                if (showPossibleMoves && (getLegalMoveMask(microboard, availableMicroboards) & getCellBit(x, y)) != 0) {
+                    if (nextPlayer == 1) {
                         b = b | (1 << 2);
                     }
-                    if (isInActiveMicroboard(x, y) && nextPlayer == 0 && field[x][y].equals(EMPTY_FIELD)) {
+                    if (nextPlayer == 0) {
                         b = b | (1 << 3);
                     }
                 }
-                if (macroboard[x/3][y/3].equals("0")) {
+                int macroCell = getMacroboardCell(microboard);
+                if (macroCell == 0) {
                     b = b | (1 << 4);
                 }
-                if (macroboard[x/3][y/3].equals("1")) {
+                if (macroCell == 1) {
                     b = b | (1 << 5);
                 }
                 if (counter > 0) {
@@ -144,16 +221,16 @@ public class TicTacToeBoard {
      * @return String with player ids for every cell, or 0 when cell is empty,
      * or -1 when cell is ready for a move.
      */
-    public String macroboardToString(Point lastMove) {
+    public String macroboardToString(Coordinate lastMove) {
         updateMacroboard(lastMove);
         StringBuilder r = new StringBuilder();
         int counter = 0;
-        for (int y = 0; y < this.height / 3; y++) {
-            for (int x = 0; x < this.width / 3; x++) {
+        for (int y = 0; y < this.macroHeight; y++) {
+            for (int x = 0; x < this.macroWidth; x++) {
                 if (counter > 0) {
                     r.append(",");
                 }
-                r.append(macroboard[x][y]);
+                r.append(getMacroboardFieldAt(x, y));
                 counter++;
             }
         }
@@ -162,12 +239,19 @@ public class TicTacToeBoard {
 
     public void initialiseFromString(String input, int w, int h) {
         String[] s = input.split(",");
+        ensureWritable();
+        if (w != this.width || h != this.height) {
+            setGeometry(TicTacToeGeometry.of(TicTacToeGeometry.getSize(w, h),
+                    Math.min(this.geometry.getLineLength(), TicTacToeGeometry.getSize(w, h))));
+            this.microboards = new int[PLAYER_COUNT * this.macroWidth * this.macroHeight];
+            this.filledCells = new int[this.macroWidth * this.macroHeight];
+            clearBoard();
+        }
         this.width = w;
         this.height = h;
-        this.field = new String[w][h];
         int x = 0, y = 0;
         for (String value : s) {
-            this.field[x][y] = value;
+            setCell(x, y, parseField(value));
             if (++x == w) {
                 x = 0;
                 y++;
@@ -180,67 +264,185 @@ public class TicTacToeBoard {
      * @return : Returns true when field is full, otherwise returns false.
      */
     public boolean boardIsFull() {
-        for (int y = 0; y < this.height; y++)
-            for (int x = 0; x < this.width; x++)
-                if (field[x][y].equals(EMPTY_FIELD))
-                    return false; // At least one cell is not filled
-        // All cells are filled
-        return true;
+        return this.emptyCells == 0;
     }
 
     /**
-     * Checks the microboards for wins and updates internal representation (macroboard)
+     * Returns the number of cells without a stone, including cells of closed microboards
      */
-    public void updateMacroboard(Point lastMove) {
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                String winner = getMicroboardWinner(x, y);
-                if (winner != null)
-                    macroboard[x][y] = String.valueOf(winner);
-                else
-                    macroboard[x][y] = EMPTY_FIELD;
-            }
+    public int getEmptyCellCount() {
+        return this.emptyCells;
+    }
+
+    /**
+     * Returns the number of empty cells in microboards that are still open, the cells
+     * that can still be played in this game
+     */
+    public int getPlayableCellCount() {
+        int count = 0;
+        int open = allMicroboards() & ~this.closedMicroboards;
+        while (open != 0) {
+            int microboard = Integer.numberOfTrailingZeros(open);
+            open &= open - 1;
+            count += this.microboardCells - this.filledCells[microboard];
         }
-        if (lastMove != null && !microboardFullOrTaken(lastMove.x%3, lastMove.y%3)) {
-            macroboard[lastMove.x%3][lastMove.y%3] = AVAILABLE_FIELD;
+        return count;
+    }
+
+    /**
+     * Updates the active microboards of the macroboard after given move
+     */
+    public void updateMacroboard(Coordinate lastMove) {
+        if (lastMove != null) {
+            updateMacroboard(lastMove.x, lastMove.y);
         } else {
-            for (int x = 0; x < 3; x++) {
-                for (int y = 0; y < 3; y++) {
-                    if (!microboardFullOrTaken(x, y)) {
-                        macroboard[x][y] = AVAILABLE_FIELD;
-                    }
-                }
-            }
+            updateMacroboard(-1, -1);
         }
     }
 
     /**
-     * Checks the microboard for a winner
-     * @return player id of winner or EMPTY_FIELD if no winner
+     * Updates the active microboards of the macroboard after given move.
+     * Wins and full microboards are already tracked when stones are placed, so this is O(1).
+     * Negative coordinates mean there is no last move, every open microboard becomes available.
      */
-    private String getMicroboardWinner(int macroX, int macroY) {
-        int startX = macroX*3;
-        int startY = macroY*3;
-		/* Check horizontal wins */
-        for (int y = startY; y < startY+3; y++) {
-            if (field[startX][y].equals(field[startX+1][y]) && field[startX+1][y].equals(field[startX+2][y]) && !field[startX][y].equals(EMPTY_FIELD) && !field[startX][y].equals(AVAILABLE_FIELD)) {
-                return field[startX][y];
-            }
+    public void updateMacroboard(int lastMoveX, int lastMoveY) {
+        if (lastMoveX >= 0 && lastMoveY >= 0 && lastMoveX < this.width && lastMoveY < this.height) {
+            activateMicroboard(this.geometry.getCellBit(lastMoveY * this.width + lastMoveX));
+            return;
         }
-		/* Check vertical wins */
-        for (int x = startX; x < startX+3; x++) {
-            if (field[x][startY].equals(field[x][startY+1]) && field[x][startY+1].equals(field[x][startY+2]) && !field[x][startY].equals(EMPTY_FIELD) && !field[x][startY].equals(AVAILABLE_FIELD)) {
-                return field[x][startY];
+        int size = this.geometry.getSize();
+        int nextX = lastMoveX % size;
+        int nextY = lastMoveY % size;
+        activateMicroboard(nextX >= 0 && nextY >= 0 ? nextY * this.macroWidth + nextX : EMPTY_CELL);
+    }
+
+    /**
+     * Sends the next move to given microboard, or to every open microboard when it is
+     * EMPTY_CELL or closed. The cell of a move within its microboard is the index of the
+     * microboard it sends the next move to, as the macroboard is as wide as a microboard.
+     */
+    private void activateMicroboard(int microboard) {
+        if (microboard != EMPTY_CELL && !microboardFullOrTaken(microboard)) {
+            this.activeMicroboard = microboard;
+            this.availableMicroboards = 1 << microboard;
+        } else {
+            this.availableMicroboards = allMicroboards() & ~this.closedMicroboards;
+            this.activeMicroboard = singleMicroboard(this.availableMicroboards);
+        }
+    }
+
+    /**
+     * Returns the only microboard in the given mask, or EMPTY_CELL when it holds none or several
+     */
+    private static int singleMicroboard(int microboards) {
+        return Integer.bitCount(microboards) == 1 ? Integer.numberOfTrailingZeros(microboards) : EMPTY_CELL;
+    }
+
+    /**
+     * Re-evaluates winner and fullness of a single microboard after one of its cells changed
+     */
+    private void updateMicroboard(int microboard) {
+        int count = this.macroWidth * this.macroHeight;
+        int bit = 1 << microboard;
+        int taken = 0;
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            this.macroboard[p] &= ~bit;
+        }
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            if (this.geometry.wins(this.microboards[p * count + microboard])) {
+                this.macroboard[p] |= bit;
+                break;
             }
         }
-		/* Check diagonal wins */
-        if (field[startX][startY].equals(field[startX+1][startY+1]) && field[startX+1][startY+1].equals(field[startX+2][startY+2]) && !field[startX][startY].equals(EMPTY_FIELD)  && !field[startX][startY].equals(AVAILABLE_FIELD) ) {
-            return field[startX][startY];
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            taken |= this.macroboard[p];
         }
-        if (field[startX+2][startY].equals(field[startX+1][startY+1]) && field[startX+1][startY+1].equals(field[startX][startY+2]) && !field[startX+2][startY].equals(EMPTY_FIELD) && !field[startX+2][startY].equals(AVAILABLE_FIELD)) {
-            return field[startX+2][startY];
+        if ((taken & bit) != 0 || this.filledCells[microboard] == this.microboardCells) {
+            this.closedMicroboards |= bit;
+        } else {
+            this.closedMicroboards &= ~bit;
         }
-        return null;
+    }
+
+    /**
+     * Plays a move in place and pushes what is needed to take it back on the undo stack.
+     * Does the same as setCell followed by updateMacroboard, but only touches the microboard
+     * that was played in, so search code can play and take back moves without copying boards.
+     * The move must be legal (see isLegalMove), this is not checked. Copies of the board start
+     * with an empty undo stack, and cells changed with setCell in between can not be unmade.
+     * @return The microboard index the move captured, or EMPTY_CELL
+     */
+    public int makeMove(int x, int y, int playerId) {
+        ensureWritable();
+        int cell = y * this.width + x;
+        int index = this.geometry.getMicroboard(cell);
+        int cellIndex = this.geometry.getCellBit(cell);
+        int microboardBit = 1 << index;
+        int count = this.macroWidth * this.macroHeight;
+        int mask = this.microboards[playerId * count + index] | 1 << cellIndex;
+        int captured = EMPTY_CELL;
+
+        this.microboards[playerId * count + index] = mask;
+        this.filledCells[index]++;
+        this.emptyCells--;
+        if (this.geometry.wins(mask, cellIndex)) {
+            this.macroboard[playerId] |= microboardBit;
+            this.closedMicroboards |= microboardBit;
+            captured = index;
+        } else if (this.filledCells[index] == this.microboardCells) {
+            this.closedMicroboards |= microboardBit;
+        }
+
+        if (this.undoStack == null) {
+            this.undoStack = new int[UNDO_ENTRY_SIZE * this.emptyCells + UNDO_ENTRY_SIZE];
+        } else if (this.undoSize + UNDO_ENTRY_SIZE > this.undoStack.length) {
+            this.undoStack = Arrays.copyOf(this.undoStack, this.undoStack.length * 2);
+        }
+        this.undoStack[this.undoSize++] = cell;
+        this.undoStack[this.undoSize++] = this.activeMicroboard;
+        this.undoStack[this.undoSize++] = this.availableMicroboards;
+        this.undoStack[this.undoSize++] = captured;
+
+        activateMicroboard(cellIndex);
+        return captured;
+    }
+
+    /**
+     * Takes back the last move played with makeMove, restoring the cell, the captured
+     * macroboard cell and the active microboard from before that move
+     */
+    public void unmakeMove() {
+        if (this.undoSize == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        ensureWritable();
+        int captured = this.undoStack[--this.undoSize];
+        this.availableMicroboards = this.undoStack[--this.undoSize];
+        this.activeMicroboard = this.undoStack[--this.undoSize];
+        int cell = this.undoStack[--this.undoSize];
+
+        int index = this.geometry.getMicroboard(cell);
+        int microboardBit = 1 << index;
+        int bit = 1 << this.geometry.getCellBit(cell);
+        int count = this.macroWidth * this.macroHeight;
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            this.microboards[p * count + index] &= ~bit;
+        }
+        this.filledCells[index]--;
+        this.emptyCells++;
+        if (captured != EMPTY_CELL) {
+            for (int p = 0; p < PLAYER_COUNT; p++) {
+                this.macroboard[p] &= ~microboardBit;
+            }
+        }
+        this.closedMicroboards &= ~microboardBit;
+    }
+
+    /**
+     * Returns the number of moves that can be taken back with unmakeMove
+     */
+    public int getUndoDepth() {
+        return this.undoSize / UNDO_ENTRY_SIZE;
     }
 
     public int getWidth() {
@@ -251,35 +453,257 @@ public class TicTacToeBoard {
         return this.height;
     }
 
-    public String getFieldAt(Point c) {
-        return field[c.x][c.y];
+    /**
+     * @return Cells along one side of a microboard, which is also the number of microboards along one side of the board
+     */
+    public int getMicroboardSize() {
+        return this.geometry.getSize();
+    }
+
+    /**
+     * @return Stones in a row needed to win a microboard, and won microboards in a row needed to win the game
+     */
+    public int getLineLength() {
+        return this.geometry.getLineLength();
+    }
+
+    public TicTacToeGeometry getGeometry() {
+        return this.geometry;
+    }
+
+    /**
+     * Returns the id of the player that owns the cell
+     * @return player id or EMPTY_CELL
+     */
+    public int getCell(int x, int y) {
+        int index = getMicroboardIndex(x, y);
+        int bit = getCellBit(x, y);
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            if ((this.microboards[p * this.macroWidth * this.macroHeight + index] & bit) != 0) {
+                return p;
+            }
+        }
+        return EMPTY_CELL;
+    }
+
+    /**
+     * Places a stone of given player on the cell, or clears it with EMPTY_CELL
+     */
+    public void setCell(int x, int y, int playerId) {
+        ensureWritable();
+        int index = getMicroboardIndex(x, y);
+        int bit = getCellBit(x, y);
+        int count = this.macroWidth * this.macroHeight;
+        if ((getTakenCells(index) & bit) != 0) {
+            this.filledCells[index]--;
+            this.emptyCells++;
+        }
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            this.microboards[p * count + index] &= ~bit;
+        }
+        if (playerId != EMPTY_CELL) {
+            this.microboards[playerId * count + index] |= bit;
+            this.filledCells[index]++;
+            this.emptyCells--;
+        }
+        updateMicroboard(index);
     }
 
-    public void setFieldAt(Point c, String v) {
-        field[c.x][c.y] = v;
+    public String getFieldAt(Coordinate c) {
+        return getFieldAt(c.x, c.y);
     }
 
-    public String getMacroboardFieldAt(Point c) {
-        return macroboard[c.x][c.y];
+    private String getFieldAt(int x, int y) {
+        int cell = getCell(x, y);
+        return cell == EMPTY_CELL ? EMPTY_FIELD : PLAYER_FIELDS[cell];
     }
 
-    public void setMacroboardFieldAt(Point c, String v) {
-        macroboard[c.x][c.y] = v;
+    public void setFieldAt(Coordinate c, String v) {
+        setCell(c.x, c.y, parseField(v));
+    }
+
+    /**
+     * Returns the id of the player that won the microboard
+     * @return player id or EMPTY_CELL
+     */
+    public int getMacroboardCell(int x, int y) {
+        return getMacroboardCell(y * this.macroWidth + x);
+    }
+
+    private int getMacroboardCell(int microboard) {
+        int bit = 1 << microboard;
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            if ((this.macroboard[p] & bit) != 0) {
+                return p;
+            }
+        }
+        return EMPTY_CELL;
+    }
+
+    /**
+     * Returns whether the next move may be played in the microboard
+     * @return Boolean
+     */
+    public boolean isActiveMicroboard(int x, int y) {
+        return (this.availableMicroboards & (1 << (y * this.macroWidth + x))) != 0;
+    }
+
+    /**
+     * Returns the stones of a player in a microboard
+     * @param microboard microboard index (macroY * macroWidth + macroX)
+     * @return N * N bit mask with bit (cellY * N + cellX) set for every stone of the player
+     */
+    public int getMicroboardMask(int playerId, int microboard) {
+        return this.microboards[playerId * this.macroWidth * this.macroHeight + microboard];
+    }
+
+    /**
+     * Returns the microboards won by a player
+     * @return mask with bit (macroY * macroWidth + macroX) set for every microboard the player won
+     */
+    public int getMacroboardMask(int playerId) {
+        return this.macroboard[playerId];
+    }
+
+    /**
+     * Returns the microboards that are won or full
+     * @return mask with bit (macroY * macroWidth + macroX) set for every closed microboard
+     */
+    public int getClosedMicroboards() {
+        return this.closedMicroboards;
+    }
+
+    /**
+     * Returns the microboards the next move may be played in
+     * @return mask with bit (macroY * macroWidth + macroX) set for every available microboard
+     */
+    public int getAvailableMicroboards() {
+        return this.availableMicroboards;
+    }
+
+    /**
+     * Returns the microboard the next move is forced into
+     * @return microboard index (macroY * macroWidth + macroX), or EMPTY_CELL when several open microboards may be played
+     */
+    public int getActiveMicroboard() {
+        return this.activeMicroboard;
+    }
+
+    /**
+     * Returns the cells of a microboard the next move may be played in
+     * @param microboard microboard index (macroY * macroWidth + macroX)
+     * @return N * N bit mask (bit = cellY * N + cellX) of the empty cells, 0 when the microboard is not available
+     */
+    public int getLegalMoveMask(int microboard) {
+        return getLegalMoveMask(microboard, this.availableMicroboards);
+    }
+
+    private int getLegalMoveMask(int microboard, int availableMicroboards) {
+        if ((availableMicroboards & (1 << microboard)) == 0) {
+            return 0;
+        }
+        return ~getTakenCells(microboard) & this.geometry.getFullMask();
+    }
+
+    /**
+     * Writes the cells the next move may be played in to the given buffer, without allocating.
+     * Moves are ordered by microboard and then by cell within the microboard.
+     * @param moves Buffer that can hold at least getWidth() * getHeight() moves
+     * @return The number of moves written, as cell indices (y * width + x)
+     */
+    public int getLegalMoves(int[] moves) {
+        int size = this.geometry.getSize();
+        int count = 0;
+        int available = this.availableMicroboards;
+        while (available != 0) {
+            int microboard = Integer.numberOfTrailingZeros(available);
+            available &= available - 1;
+            int originX = (microboard % this.macroWidth) * size;
+            int originY = (microboard / this.macroWidth) * size;
+            int cells = getLegalMoveMask(microboard);
+            while (cells != 0) {
+                int bit = Integer.numberOfTrailingZeros(cells);
+                cells &= cells - 1;
+                int x = originX + bit % size;
+                int y = originY + bit / size;
+                moves[count++] = y * this.width + x;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of cells the next move may be played in
+     */
+    public int getLegalMoveCount() {
+        int count = 0;
+        int available = this.availableMicroboards;
+        while (available != 0) {
+            int microboard = Integer.numberOfTrailingZeros(available);
+            available &= available - 1;
+            count += Integer.bitCount(getLegalMoveMask(microboard));
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the next move may be played on the cell, in O(1)
+     * @return True when the cell is on the board, empty and in an available microboard
+     */
+    public boolean isLegalMove(int x, int y) {
+        if (x < 0 || y < 0 || x >= this.width || y >= this.height) {
+            return false;
+        }
+        int cell = y * this.width + x;
+        return (getLegalMoveMask(this.geometry.getMicroboard(cell)) & 1 << this.geometry.getCellBit(cell)) != 0;
+    }
+
+    public String getMacroboardFieldAt(Coordinate c) {
+        return getMacroboardFieldAt(c.x, c.y);
+    }
+
+    private String getMacroboardFieldAt(int x, int y) {
+        int winner = getMacroboardCell(x, y);
+        if (winner != EMPTY_CELL) {
+            return PLAYER_FIELDS[winner];
+        }
+        return isActiveMicroboard(x, y) ? AVAILABLE_FIELD : EMPTY_FIELD;
+    }
+
+    public void setMacroboardFieldAt(Coordinate c, String v) {
+        ensureWritable();
+        int microboard = c.y * this.macroWidth + c.x;
+        int bit = 1 << microboard;
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            this.macroboard[p] &= ~bit;
+        }
+        this.availableMicroboards &= ~bit;
+        if (v.equals(AVAILABLE_FIELD)) {
+            this.availableMicroboards |= bit;
+        } else if (!v.equals(EMPTY_FIELD)) {
+            this.macroboard[parseField(v)] |= bit;
+        }
+        if (!v.equals(AVAILABLE_FIELD) && !v.equals(EMPTY_FIELD)) {
+            this.closedMicroboards |= bit;
+        } else if (this.filledCells[microboard] < this.microboardCells) {
+            this.closedMicroboards &= ~bit;
+        }
+        this.activeMicroboard = singleMicroboard(this.availableMicroboards);
     }
 
     public void dump() {
         for (int y = 0; y < this.height; y++) {
             for (int x = 0; x < this.width; x++) {
-                System.out.print(field[x][y]);
+                System.out.print(getFieldAt(x, y));
             }
             System.out.println();
         }
     }
 
     public void dumpMacroboard() {
-        for (int y = 0; y < this.height /3; y++) {
-            for (int x = 0; x < this.width/3; x++) {
-                System.out.print(macroboard[x][y]);
+        for (int y = 0; y < this.macroHeight; y++) {
+            for (int x = 0; x < this.macroWidth; x++) {
+                System.out.print(getMacroboardFieldAt(x, y));
             }
             System.out.println();
         }
@@ -289,70 +713,103 @@ public class TicTacToeBoard {
      * Returns whether microboard is full OR taken
      * @return Boolean
      */
-    private Boolean microboardFullOrTaken(int x, int y) {
-        if (x < 0 || y < 0) return true; /* empty board */
-
-        if (!macroboard[x][y].equals(EMPTY_FIELD) && !macroboard[x][y].equals(AVAILABLE_FIELD)) { /* microboard is taken */
-            return true;
-        }
-        for (int my = y*3; my < y*3+3; my++) {
-            for (int mx = x*3; mx < x*3+3; mx++) {
-                if (Objects.equals(field[mx][my], EMPTY_FIELD))
-                    return false;
-            }
-        }
-        return true; /* microboard is full */
+    private boolean microboardFullOrTaken(int microboard) {
+        return (this.closedMicroboards & (1 << microboard)) != 0;
     }
 
     /**
      * Returns whether field is in active microboard
      * @return Boolean
      */
-    public Boolean isInActiveMicroboard(int x, int y) {
-        return macroboard[(int) Math.floor(x/3)][(int) Math.floor(y/3)].equals(AVAILABLE_FIELD);
+    public boolean isInActiveMicroboard(int x, int y) {
+        return (this.availableMicroboards & (1 << getMicroboardIndex(x, y))) != 0;
     }
 
     /**
      * Checks the macroboard for a winner
-     * @return player id of winner or EMPTY_FIELD if no winner
+     * @return player id of winner or null if no winner
      */
     public Integer getMacroboardWinner() {
-		/* Check horizontal wins */
-        for (int y = 0; y < 3; y++) {
-            if (macroboard[0][y].equals(macroboard[1][y]) && macroboard[1][y].equals(macroboard[2][y]) && !macroboard[0][y].equals(EMPTY_FIELD) && !macroboard[0][y].equals(AVAILABLE_FIELD)) {
-                return Integer.parseInt(macroboard[0][y]);
-            }
+        int winner = getMacroboardWinnerId();
+        if (winner == EMPTY_CELL) {
+            return null;
         }
-		/* Check vertical wins */
-        for (int x = 0; x < 3; x++) {
-            if (Objects.equals(macroboard[x][0], macroboard[x][1]) && Objects.equals(macroboard[x][1], macroboard[x][2]) && !macroboard[x][0].equals(EMPTY_FIELD) && !macroboard[x][0].equals(AVAILABLE_FIELD)) {
-                return Integer.parseInt(macroboard[x][0]);
+        return winner;
+    }
+
+    /**
+     * Checks the macroboard for a winner
+     * @return player id of winner or EMPTY_CELL if no winner
+     */
+    public int getMacroboardWinnerId() {
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            if (this.geometry.wins(this.macroboard[p])) {
+                return p;
             }
         }
-		/* Check diagonal wins */
-        if (macroboard[0][0].equals(macroboard[1][1]) && macroboard[1][1].equals(macroboard[2][2]) && !macroboard[0][0].equals(EMPTY_FIELD) && !macroboard[0][0].equals(AVAILABLE_FIELD)) {
-            return Integer.parseInt(macroboard[0][0]);
-        }
-        if (macroboard[2][0].equals(macroboard[1][1]) && macroboard[1][1].equals(macroboard[0][2]) && !macroboard[2][0].equals(EMPTY_FIELD) && !macroboard[2][0].equals(AVAILABLE_FIELD)) {
-            return Integer.parseInt(macroboard[2][0]);
-        }
-        return null;
+        return EMPTY_CELL;
     }
 
     /**
-     * Returns whether microboard is full OR taken
+     * Returns whether all microboards are taken
      * @return Boolean
      */
     public boolean macroboardIsFull() {
+        int taken = 0;
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            taken |= this.macroboard[p];
+        }
+        return taken == allMicroboards();
+    }
+
+    /**
+     * Takes private copies of the mask arrays when they are still shared with another board
+     */
+    private void ensureWritable() {
+        if (this.shared) {
+            this.microboards = this.microboards.clone();
+            this.macroboard = this.macroboard.clone();
+            this.filledCells = this.filledCells.clone();
+            this.shared = false;
+        }
+    }
+
+    private int getTakenCells(int microboard) {
+        int count = this.macroWidth * this.macroHeight;
+        int taken = 0;
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            taken |= this.microboards[p * count + microboard];
+        }
+        return taken;
+    }
+
+    /**
+     * @return Index of the microboard cell (x, y) is in
+     */
+    private int getMicroboardIndex(int x, int y) {
+        return this.geometry.getMicroboard(y * this.width + x);
+    }
+
+    /**
+     * @return Mask with the bit of cell (x, y) in its microboard
+     */
+    private int getCellBit(int x, int y) {
+        return 1 << this.geometry.getCellBit(y * this.width + x);
+    }
 
+    private int allMicroboards() {
+        return (1 << this.macroWidth * this.macroHeight) - 1;
+    }
 
-        for (int my = 0; my < 3; my++) {
-            for (int mx = 0; mx < 3; mx++) {
-                if (macroboard[mx][my].equals(EMPTY_FIELD) || macroboard[mx][my].equals(AVAILABLE_FIELD))
-                    return false;
+    private int parseField(String v) {
+        if (v.equals(EMPTY_FIELD)) {
+            return EMPTY_CELL;
+        }
+        for (int p = 0; p < PLAYER_COUNT; p++) {
+            if (PLAYER_FIELDS[p].equals(v)) {
+                return p;
             }
         }
-        return true; /* microboard is full */
+        throw new IllegalArgumentException("Unknown field value " + v);
     }
 }
-
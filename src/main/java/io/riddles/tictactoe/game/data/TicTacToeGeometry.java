@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.data;
+
+import java.util.Arrays;
+
+/**
+ * TicTacToeGeometry holds the tables TicTacToeBoard needs for a board of N x N microboards
+ * of N x N cells, where a microboard or the macroboard is won with lineLength in a row.
+ *
+ * Cells of a microboard, and microboards of the macroboard, are numbered y * N + x and used
+ * as bits in masks, so masks fit in an int for N up to MAX_SIZE. Lines are precomputed as
+ * such masks, and so are the lines through every cell, so a move only checks the lines it
+ * can complete. For N up to 4 every mask is looked up in a table of winning masks instead.
+ *
+ * Geometries are immutable and shared between all boards of the same size.
+ */
+public final class TicTacToeGeometry {
+
+    public static final int MIN_SIZE = 2;
+    public static final int MAX_SIZE = 5;
+
+    private static final int MAX_TABLE_CELLS = 16;
+    private static final TicTacToeGeometry[][] GEOMETRIES = new TicTacToeGeometry[MAX_SIZE + 1][MAX_SIZE + 1];
+
+    private final int size;
+    private final int lineLength;
+    private final int cellCount;
+    private final int fullMask;
+    private final int[] lines;
+    private final int[][] linesThrough;
+    private final boolean[] winningMasks;
+    private final int[] cellMicroboards;
+    private final int[] cellBits;
+
+    private TicTacToeGeometry(int size, int lineLength) {
+        this.size = size;
+        this.lineLength = lineLength;
+        this.cellCount = size * size;
+        this.fullMask = (1 << this.cellCount) - 1;
+        this.lines = createLines(size, lineLength);
+
+        this.linesThrough = new int[this.cellCount][];
+        for (int bit = 0; bit < this.cellCount; bit++) {
+            int count = 0;
+            for (int line : this.lines) {
+                count += (line >>> bit) & 1;
+            }
+            this.linesThrough[bit] = new int[count];
+            count = 0;
+            for (int line : this.lines) {
+                if ((line & 1 << bit) != 0) {
+                    this.linesThrough[bit][count++] = line;
+                }
+            }
+        }
+
+        if (this.cellCount <= MAX_TABLE_CELLS) {
+            this.winningMasks = new boolean[this.fullMask + 1];
+            for (int mask = 0; mask <= this.fullMask; mask++) {
+                this.winningMasks[mask] = containsLine(mask, this.lines);
+            }
+        } else {
+            this.winningMasks = null;
+        }
+
+        /* Microboard and bit of every cell of the whole board, by cell index (y * width + x) */
+        int width = this.cellCount;
+        this.cellMicroboards = new int[width * width];
+        this.cellBits = new int[width * width];
+        for (int cell = 0; cell < width * width; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            this.cellMicroboards[cell] = (y / size) * size + x / size;
+            this.cellBits[cell] = (y % size) * size + x % size;
+        }
+    }
+
+    /**
+     * Returns the geometry for microboards of size x size cells
+     * @param lineLength Stones in a row needed to win, from 2 up to size
+     * @throws IllegalArgumentException when size or lineLength are not supported
+     */
+    public static TicTacToeGeometry of(int size, int lineLength) {
+        if (size < MIN_SIZE || size > MAX_SIZE || lineLength < MIN_SIZE || lineLength > size) {
+            throw new IllegalArgumentException("Unsupported microboard size " + size + " with line length " + lineLength);
+        }
+        synchronized (GEOMETRIES) {
+            if (GEOMETRIES[size][lineLength] == null) {
+                GEOMETRIES[size][lineLength] = new TicTacToeGeometry(size, lineLength);
+            }
+            return GEOMETRIES[size][lineLength];
+        }
+    }
+
+    /**
+     * Returns the microboard size of a board that is size x size microboards of size x size cells
+     * @param width Width of the board in cells
+     * @param height Height of the board in cells
+     * @throws IllegalArgumentException when the board does not have such a size
+     */
+    public static int getSize(int width, int height) {
+        int size = (int) Math.round(Math.sqrt(width));
+        if (width != height || size * size != width || size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported field size " + width + "x" + height
+                    + ", expected N*N by N*N cells with N from " + MIN_SIZE + " to " + MAX_SIZE);
+        }
+        return size;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getLineLength() {
+        return this.lineLength;
+    }
+
+    /**
+     * @return Cells of a microboard, and microboards of the macroboard
+     */
+    public int getCellCount() {
+        return this.cellCount;
+    }
+
+    /**
+     * @return Mask with all getCellCount() bits set
+     */
+    public int getFullMask() {
+        return this.fullMask;
+    }
+
+    /**
+     * @return All lines as masks, do not modify
+     */
+    public int[] getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Returns whether a mask contains a whole line
+     */
+    public boolean wins(int mask) {
+        if (this.winningMasks != null) {
+            return this.winningMasks[mask & this.fullMask];
+        }
+        return containsLine(mask, this.lines);
+    }
+
+    /**
+     * Returns whether a mask contains a whole line through given bit, the lines a
+     * stone placed on that bit can have completed
+     */
+    public boolean wins(int mask, int bit) {
+        if (this.winningMasks != null) {
+            return this.winningMasks[mask & this.fullMask];
+        }
+        return containsLine(mask, this.linesThrough[bit]);
+    }
+
+    /**
+     * @param cell Cell index (y * width + x) on the board
+     * @return The index of the microboard the cell is in
+     */
+    public int getMicroboard(int cell) {
+        return this.cellMicroboards[cell];
+    }
+
+    /**
+     * @param cell Cell index (y * width + x) on the board
+     * @return The bit of the cell in the mask of its microboard, which is also the index of the
+     * microboard the next move is sent to
+     */
+    public int getCellBit(int cell) {
+        return this.cellBits[cell];
+    }
+
+    private static boolean containsLine(int mask, int[] lines) {
+        for (int line : lines) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] createLines(int size, int lineLength) {
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+        int[] lines = new int[4 * size * size];
+        int count = 0;
+        for (int[] direction : directions) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int endX = x + direction[0] * (lineLength - 1);
+                    int endY = y + direction[1] * (lineLength - 1);
+                    if (endX < 0 || endX >= size || endY < 0 || endY >= size) {
+                        continue;
+                    }
+                    int line = 0;
+                    for (int i = 0; i < lineLength; i++) {
+                        line |= 1 << ((y + direction[1] * i) * size + x + direction[0] * i);
+                    }
+                    lines[count++] = line;
+                }
+            }
+        }
+        return Arrays.copyOf(lines, count);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.move;
+
+import io.riddles.javainterface.exception.InvalidInputException;
+import io.riddles.javainterface.exception.InvalidMoveException;
+
+/**
+ * MoveError enumerates the reasons a move can be rejected, with the message the
+ * engine reports for it and a stable numeric code for compact storage.
+ */
+public enum MoveError {
+    NONE(0, ""),
+    OUT_OF_BOUNDS(1, "Move out of bounds"),
+    NOT_IN_ACTIVE_MICROBOARD(2, "Move not in active macroboard"),
+    FIELD_FILLED(3, "Chosen position is already filled"),
+    INCORRECT_PARAMETERS(4, "Number of parameters is incorrect."),
+    UNPARSABLE(5, "Failed to parse move"),
+    UNKNOWN_COMMAND(6, "Move isn't valid"),
+    TRANSFORM_FAILED(7, "Error parsing move"),
+    TIMEOUT(8, "Bot ran out of time"),
+    UNKNOWN(15, "Unknown error");
+
+    private static final MoveError[] BY_CODE = new MoveError[16];
+
+    static {
+        for (MoveError error : values()) {
+            BY_CODE[error.code] = error;
+        }
+    }
+
+    private final int code;
+    private final String message;
+
+    MoveError(int code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public int getCode() {
+        return this.code;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * Returns whether the move was rejected while parsing, before the rules were applied
+     */
+    public boolean isInputError() {
+        return this == INCORRECT_PARAMETERS || this == UNPARSABLE || this == UNKNOWN_COMMAND;
+    }
+
+    /**
+     * Returns whether the bot ran out of time, rather than breaking the rules
+     */
+    public boolean isTimeout() {
+        return this == TIMEOUT;
+    }
+
+    /**
+     * Creates the exception the engine stores on a move rejected for this reason
+     */
+    public InvalidInputException toException() {
+        if (isInputError() || isTimeout()) {
+            return new InvalidInputException(this.message);
+        }
+        return new InvalidMoveException(this.message);
+    }
+
+    public static MoveError fromCode(int code) {
+        MoveError error = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        return error != null ? error : UNKNOWN;
+    }
+
+    /**
+     * Finds the reason of an exception stored on a move
+     * @return NONE when there is no exception, UNKNOWN when the message is not recognised
+     */
+    public static MoveError fromException(InvalidInputException exception) {
+        if (exception == null) {
+            return NONE;
+        }
+        return fromMessage(exception.getMessage());
+    }
+
+    /**
+     * Finds the reason for an error message reported by the engine
+     * @return NONE for an empty message, UNKNOWN when the message is not recognised
+     */
+    public static MoveError fromMessage(String message) {
+        for (MoveError error : values()) {
+            if (error.message.equals(message)) {
+                return error;
+            }
+        }
+        return UNKNOWN;
+    }
+}
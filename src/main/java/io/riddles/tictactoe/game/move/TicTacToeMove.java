@@ -21,15 +21,14 @@ package io.riddles.tictactoe.game.move;
 
 import io.riddles.javainterface.exception.InvalidInputException;
 import io.riddles.javainterface.game.move.AbstractMove;
-
-import java.awt.*;
+import io.riddles.tictactoe.game.data.Coordinate;
 
 
 public class TicTacToeMove extends AbstractMove {
 
-    private Point coordinate;
+    private Coordinate coordinate;
 
-    public TicTacToeMove(Point c) {
+    public TicTacToeMove(Coordinate c) {
         super();
         coordinate = c;
     }
@@ -38,7 +37,7 @@ public class TicTacToeMove extends AbstractMove {
         super(exception);
     }
 
-    public Point getCoordinate() {
+    public Coordinate getCoordinate() {
         return this.coordinate;
     }
 
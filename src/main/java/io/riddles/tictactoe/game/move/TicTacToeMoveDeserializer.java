@@ -19,46 +19,140 @@
 
 package io.riddles.tictactoe.game.move;
 
+import io.riddles.tictactoe.game.data.Coordinate;
 import io.riddles.tictactoe.game.data.MoveType;
 import io.riddles.javainterface.exception.InvalidInputException;
 import io.riddles.javainterface.serialize.Deserializer;
 
-import java.awt.*;
+/**
+ * TicTacToeMoveDeserializer parses a bot response of the form "place_move X Y".
+ *
+ * The response is scanned in place: scan() reads the command and both numbers straight
+ * into primitive fields and reports a MoveError instead of throwing, so parsing a valid
+ * move allocates nothing. Like the old split/parseInt parser, words are separated by
+ * single spaces, trailing spaces are ignored and numbers may have a sign.
+ */
+public class TicTacToeMoveDeserializer implements Deserializer<TicTacToeMove> {
 
+    private static final String PLACE_MOVE = "place_move";
 
-public class TicTacToeMoveDeserializer implements Deserializer<TicTacToeMove> {
+    private int column;
+    private int row;
 
     public TicTacToeMoveDeserializer() {}
 
     @Override
     public TicTacToeMove traverse(String string) {
-        try {
-            return visitMove(string);
-        } catch (InvalidInputException ex) {
-            return new TicTacToeMove(ex);
-        } catch (Exception ex) {
-            return new TicTacToeMove(new InvalidInputException("Failed to parse move"));
+        MoveError error = scan(string);
+        if (error != MoveError.NONE) {
+            return new TicTacToeMove(error.toException());
         }
+        return new TicTacToeMove(Coordinate.of(this.column, this.row));
     }
 
-    private TicTacToeMove visitMove(String input) throws InvalidInputException {
+    /**
+     * Parses a response into getColumn() and getRow()
+     * @param input The response of the bot, may be null
+     * @return NONE when the response is a valid place_move command, the reason otherwise
+     */
+    public MoveError scan(CharSequence input) {
+        if (input == null) {
+            return MoveError.UNPARSABLE;
+        }
+        int end = input.length();
+        while (end > 0 && input.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        /* The command and two numbers, separated by exactly two spaces */
+        int first = -1, second = -1;
+        for (int i = 0; i < end; i++) {
+            if (input.charAt(i) != ' ') {
+                continue;
+            }
+            if (first < 0) {
+                first = i;
+            } else if (second < 0) {
+                second = i;
+            } else {
+                return MoveError.INCORRECT_PARAMETERS;
+            }
+        }
+        if (second < 0) {
+            return MoveError.INCORRECT_PARAMETERS;
+        }
 
-        String[] split = input.split(" ");
-        if (split.length != 3) {
-            throw new InvalidInputException("Number of parameters is incorrect.");
+        if (!isCommand(input, 0, first, PLACE_MOVE)) {
+            return MoveError.UNKNOWN_COMMAND;
         }
-        int column = Integer.parseInt(split[1]);
-        int row = Integer.parseInt(split[2]);
-        Point c = new Point(column, row);
-        return new TicTacToeMove(c);
+        long column = parseInt(input, first + 1, second);
+        long row = parseInt(input, second + 1, end);
+        if (column == Long.MIN_VALUE || row == Long.MIN_VALUE) {
+            return MoveError.UNPARSABLE;
+        }
+        this.column = (int) column;
+        this.row = (int) row;
+        return MoveError.NONE;
+    }
+
+    /**
+     * @return The x coordinate of the last move scanned without error
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * @return The y coordinate of the last move scanned without error
+     */
+    public int getRow() {
+        return this.row;
     }
 
     public MoveType visitAssessment(String input) throws InvalidInputException {
-        switch (input) {
-            case "place_move":
-                return MoveType.PLACEMOVE;
-            default:
-                throw new InvalidInputException("Move isn't valid");
+        if (isCommand(input, 0, input.length(), PLACE_MOVE)) {
+            return MoveType.PLACEMOVE;
+        }
+        throw MoveError.UNKNOWN_COMMAND.toException();
+    }
+
+    private static boolean isCommand(CharSequence input, int start, int end, String command) {
+        if (end - start != command.length()) {
+            return false;
+        }
+        for (int i = 0; i < command.length(); i++) {
+            if (input.charAt(start + i) != command.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a decimal int the way Integer.parseInt does
+     * @return The value, or Long.MIN_VALUE when the text is not a valid int
+     */
+    private static long parseInt(CharSequence input, int start, int end) {
+        boolean negative = false;
+        if (start < end && (input.charAt(start) == '-' || input.charAt(start) == '+')) {
+            negative = input.charAt(start) == '-';
+            start++;
+        }
+        if (start >= end) {
+            return Long.MIN_VALUE;
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(input.charAt(i), 10);
+            if (digit < 0) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                return Long.MIN_VALUE;
+            }
         }
+        return negative ? -value : value;
     }
 }
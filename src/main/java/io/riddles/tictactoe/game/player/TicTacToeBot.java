@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.player;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+/**
+ * TicTacToeBot is a bot that runs inside the engine JVM. Instead of reading updates from
+ * stdin and writing "place_move X Y" it gets the board and returns the cell it plays.
+ *
+ * @see io.riddles.tictactoe.engine.TicTacToeMatchRunner
+ */
+public interface TicTacToeBot {
+
+    /**
+     * Chooses the next move.
+     * @param board Copy of the current board, the bot may change it freely unless it is a
+     *              TicTacToeReadOnlyBot, which may be given the board itself
+     * @param botId The id of the bot in this match
+     * @return Cell index (y * width + x) of the move, anything outside the board is an out of bounds move
+     */
+    int getMove(TicTacToeBoard board, int botId);
+
+    /**
+     * Returns the board to pass to getMove of given bot: the board itself for a
+     * TicTacToeReadOnlyBot, and a copy for any other bot
+     */
+    static TicTacToeBoard boardFor(TicTacToeBot bot, TicTacToeBoard board) {
+        return bot instanceof TicTacToeReadOnlyBot ? board : new TicTacToeBoard(board);
+    }
+
+    /**
+     * Releases what the bot holds, such as worker threads, when it implements AutoCloseable.
+     * Whoever creates a bot closes it once the bot has played its last move.
+     */
+    static void close(TicTacToeBot bot) {
+        if (bot instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) bot).close();
+            } catch (Exception ex) {
+                throw new IllegalStateException("Failed to close bot", ex);
+            }
+        }
+    }
+}
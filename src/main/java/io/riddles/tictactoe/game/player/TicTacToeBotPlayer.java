@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.player;
+
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+/**
+ * TicTacToeBotPlayer is a TicTacToePlayer played by a TicTacToeBot inside the engine, so
+ * built-in bots can be added to a PlayerProvider next to bots that talk to the wrapper.
+ * It keeps its own board from the field and macroboard updates the processor sends, or
+ * from the last_move updates in delta mode, and answers move requests the way a remote bot would.
+ */
+public class TicTacToeBotPlayer extends TicTacToePlayer {
+
+    private final TicTacToeBot bot;
+    private final TicTacToeBoard board;
+
+    public TicTacToeBotPlayer(int id, TicTacToeBot bot, int fieldWidth, int fieldHeight) {
+        super(id);
+        this.bot = bot;
+        this.board = new TicTacToeBoard(fieldWidth, fieldHeight);
+    }
+
+    /**
+     * @param lineLength Stones in a row needed to win, as configured in the engine
+     */
+    public TicTacToeBotPlayer(int id, TicTacToeBot bot, int fieldWidth, int fieldHeight, int lineLength) {
+        super(id);
+        this.bot = bot;
+        this.board = new TicTacToeBoard(fieldWidth, fieldHeight, lineLength);
+    }
+
+    @Override
+    public void sendUpdate(String type, String value) {
+        switch (type) {
+            case "field":
+                this.board.initialiseFromString(value, this.board.getWidth(), this.board.getHeight());
+                break;
+            case "macroboard":
+                String[] fields = value.split(",");
+                int macroWidth = this.board.getMicroboardSize();
+                for (int i = 0; i < fields.length; i++) {
+                    this.board.setMacroboardFieldAt(Coordinate.of(i % macroWidth, i / macroWidth), fields[i]);
+                }
+                break;
+            case "last_move":
+                String[] coordinates = value.split(" ");
+                applyMove(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]), 1 - getId());
+                break;
+        }
+    }
+
+    @Override
+    public void sendUpdate(String type, int value) {}
+
+    @Override
+    public void sendSetting(String type, int value) {}
+
+    @Override
+    public void sendSetting(String type, String value) {}
+
+    /**
+     * Asks the bot for its move on the last board it was sent
+     * @return The move in the format of the wrapper, or null when the bot failed
+     */
+    @Override
+    protected String respond(Enum moveType) {
+        int cell;
+        try {
+            cell = this.bot.getMove(new TicTacToeBoard(this.board), getId());
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        int x = cell >= 0 ? cell % this.board.getWidth() : -1;
+        int y = cell >= 0 ? cell / this.board.getWidth() : -1;
+        applyMove(x, y, getId()); /* Delta updates only contain the move of the opponent */
+        return "place_move " + x + " " + y;
+    }
+
+    private void applyMove(int x, int y, int playerId) {
+        if (this.board.isLegalMove(x, y)) {
+            this.board.setCell(x, y, playerId);
+            this.board.updateMacroboard(x, y);
+        }
+    }
+
+    public TicTacToeBot getBot() {
+        return this.bot;
+    }
+
+    public String toString() {
+        return "TicTacToeBotPlayer " + this.getId();
+    }
+}
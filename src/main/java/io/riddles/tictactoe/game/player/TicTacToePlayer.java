@@ -20,14 +20,57 @@
 package io.riddles.tictactoe.game.player;
 
 import io.riddles.javainterface.game.player.AbstractPlayer;
+import io.riddles.tictactoe.metrics.LatencyHistogram;
+import io.riddles.tictactoe.metrics.TicTacToeMetrics;
 
 
 public class TicTacToePlayer extends AbstractPlayer {
 
+    private LatencyHistogram responseLatency;
+    private long lastResponseTime = -1;
+
     public TicTacToePlayer(int id) {
         super(id);
     }
 
+    /**
+     * Records how long the bot takes to respond to move requests
+     * @param metrics The metrics to record to, or null to stop recording
+     */
+    public void setMetrics(TicTacToeMetrics metrics) {
+        this.responseLatency = metrics != null
+                ? metrics.histogram(TicTacToeMetrics.BOT_RESPONSE, "player", String.valueOf(getId())) : null;
+    }
+
+    /**
+     * Asks the bot for its move and measures how long it takes to respond
+     */
+    @Override
+    public final String requestMove(Enum moveType) {
+        long start = System.nanoTime();
+        String response = respond(moveType);
+        long nanos = System.nanoTime() - start;
+        this.lastResponseTime = nanos / 1000000;
+        if (this.responseLatency != null) {
+            this.responseLatency.record(nanos);
+        }
+        return response;
+    }
+
+    /**
+     * Gets the response of the bot to a move request, from the wrapper by default
+     */
+    protected String respond(Enum moveType) {
+        return super.requestMove(moveType);
+    }
+
+    /**
+     * @return Milliseconds the bot took for its last response, or -1 before its first move
+     */
+    public long getLastResponseTime() {
+        return this.lastResponseTime;
+    }
+
     public String toString() {
         return "TicTacToePlayer " + this.getId();
     }
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.player;
+
+/**
+ * TicTacToeReadOnlyBot is a bot that leaves the board it gets as it found it, so callers
+ * that play many moves, such as self-play, can pass their own board instead of a copy.
+ *
+ * @see TicTacToeBot#boardFor(TicTacToeBot, io.riddles.tictactoe.game.data.TicTacToeBoard)
+ */
+public interface TicTacToeReadOnlyBot extends TicTacToeBot {
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor;
+
+/**
+ * AdjudicationReason enumerates why a game was ended before it was played out,
+ * with a stable numeric code that is stored in the replay.
+ */
+public enum AdjudicationReason {
+    NONE(0, ""),
+    DEAD_DRAW(1, "No line on the macroboard can be completed"),
+    TABLEBASE(2, "Result solved by the tablebase");
+
+    private final int code;
+    private final String message;
+
+    AdjudicationReason(int code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public int getCode() {
+        return this.code;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * @return The reason with given code, NONE when the code is unknown
+     */
+    public static AdjudicationReason fromCode(int code) {
+        for (AdjudicationReason reason : values()) {
+            if (reason.code == code) {
+                return reason;
+            }
+        }
+        return NONE;
+    }
+}
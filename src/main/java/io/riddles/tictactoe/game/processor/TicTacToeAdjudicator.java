@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor;
+
+import io.riddles.tictactoe.ai.TicTacToeTablebase;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+/**
+ * TicTacToeAdjudicator decides when a game can end before it is played out, so no more
+ * bot round trips are spent on moves that can't change the result:
+ * - dead draws: for both players, every line of the macroboard holds a microboard won by the
+ *   opponent or one that is full without a winner, so neither player can win anymore
+ * - solved positions: the position is in the tablebase, the result of perfect play is taken
+ *
+ * Dead draws are read from the won and closed microboard masks the board keeps up to date
+ * with every move, so checking costs a few mask operations per move. Note that a game played
+ * out from a dead draw can still be lost by a player that is left without any legal move.
+ */
+public class TicTacToeAdjudicator {
+
+    private final boolean deadDraws;
+    private final TicTacToeTablebase tablebase;
+
+    /**
+     * @param deadDraws True to end games that can only end in a draw
+     * @param tablebase Tablebase to end solved games with, or null
+     */
+    public TicTacToeAdjudicator(boolean deadDraws, TicTacToeTablebase tablebase) {
+        this.deadDraws = deadDraws;
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Checks whether a game that has no winner yet can end now
+     * @param playerToMove The id of the player that makes the next move
+     * @return The reason to end the game, or NONE
+     */
+    public AdjudicationReason adjudicate(TicTacToeBoard board, int playerToMove) {
+        if (this.deadDraws && isDeadDraw(board)) {
+            return AdjudicationReason.DEAD_DRAW;
+        }
+        if (this.tablebase != null && this.tablebase.probe(board, playerToMove) != TicTacToeTablebase.NOT_FOUND) {
+            return AdjudicationReason.TABLEBASE;
+        }
+        return AdjudicationReason.NONE;
+    }
+
+    /**
+     * Returns the winner of an adjudicated game
+     * @param playerToMove The id of the player that makes the next move
+     * @return The id of the winner, or null for a draw
+     */
+    public Integer getWinner(TicTacToeBoard board, int playerToMove, AdjudicationReason reason) {
+        if (reason != AdjudicationReason.TABLEBASE) {
+            return null;
+        }
+        Integer winner = this.tablebase.getWinner(board, playerToMove);
+        return winner == null || winner == TicTacToeBoard.EMPTY_CELL ? null : winner;
+    }
+
+    /**
+     * Returns whether no player can complete a line on the macroboard anymore
+     */
+    public static boolean isDeadDraw(TicTacToeBoard board) {
+        int closed = board.getClosedMicroboards();
+        int[] lines = board.getGeometry().getLines();
+        for (int player = 0; player < TicTacToeBoard.PLAYER_COUNT; player++) {
+            int won = board.getMacroboardMask(player);
+            int blocked = closed & ~won; /* Won by the other player, or full without a winner */
+            for (int line : lines) {
+                if ((line & blocked) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
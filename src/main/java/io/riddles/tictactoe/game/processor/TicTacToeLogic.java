@@ -19,15 +19,13 @@
 
 package io.riddles.tictactoe.game.processor;
 
-import io.riddles.javainterface.exception.InvalidMoveException;
+import io.riddles.tictactoe.game.data.Coordinate;
 import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.move.MoveError;
 import io.riddles.tictactoe.game.move.TicTacToeMove;
 import io.riddles.tictactoe.game.state.TicTacToePlayerState;
 import io.riddles.tictactoe.game.state.TicTacToeState;
 
-import java.awt.*;
-import java.util.Objects;
-
 public class TicTacToeLogic {
 
     public TicTacToeLogic() {}
@@ -58,23 +56,23 @@ public class TicTacToeLogic {
         TicTacToeMove move = playerState.getMove();
 
         TicTacToeBoard b = state.getBoard();
-        Point c = move.getCoordinate();
+        Coordinate c = move.getCoordinate();
 
-        if (c.getX() < b.getWidth() && c.getY() < b.getHeight() && c.getX() >= 0 && c.getY() >= 0) { /* Move within range */
+        if (c.x < b.getWidth() && c.y < b.getHeight() && c.x >= 0 && c.y >= 0) { /* Move within range */
             if (b.isInActiveMicroboard(c.x, c.y)) { /* Move in active microboard */
-                if (Objects.equals(b.getFieldAt(c), TicTacToeBoard.EMPTY_FIELD)) { /* Field is available */
-                    b.setFieldAt(c, String.valueOf(pId));
-                    b.updateMacroboard(move.getCoordinate());
+                if (b.getCell(c.x, c.y) == TicTacToeBoard.EMPTY_CELL) { /* Field is available */
+                    b.setCell(c.x, c.y, pId);
+                    b.updateMacroboard(c.x, c.y);
 
                     /* Success */
                 } else {
-                    move.setException(new InvalidMoveException("Chosen position is already filled"));
+                    move.setException(MoveError.FIELD_FILLED.toException());
                 }
             } else {
-                move.setException(new InvalidMoveException("Move not in active macroboard"));
+                move.setException(MoveError.NOT_IN_ACTIVE_MICROBOARD.toException());
             }
         } else {
-            move.setException(new InvalidMoveException("Move out of bounds"));
+            move.setException(MoveError.OUT_OF_BOUNDS.toException());
         }
     }
 }
\ No newline at end of file
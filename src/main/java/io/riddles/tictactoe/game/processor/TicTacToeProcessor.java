@@ -20,23 +20,57 @@
 package io.riddles.tictactoe.game.processor;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
-import io.riddles.javainterface.exception.InvalidMoveException;
 import io.riddles.javainterface.game.player.PlayerProvider;
 import io.riddles.javainterface.game.processor.PlayerResponseProcessor;
 import io.riddles.javainterface.game.state.AbstractPlayerState;
 import io.riddles.javainterface.io.PlayerResponse;
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
 import io.riddles.tictactoe.game.move.ActionType;
+import io.riddles.tictactoe.game.move.MoveError;
 import io.riddles.tictactoe.game.move.TicTacToeMove;
 import io.riddles.tictactoe.game.move.TicTacToeMoveDeserializer;
 import io.riddles.tictactoe.game.player.TicTacToePlayer;
 import io.riddles.tictactoe.game.state.TicTacToePlayerState;
 import io.riddles.tictactoe.game.state.TicTacToeState;
+import io.riddles.tictactoe.metrics.LatencyHistogram;
+import io.riddles.tictactoe.metrics.TicTacToeMetrics;
 
 public class TicTacToeProcessor extends PlayerResponseProcessor<TicTacToeState, TicTacToePlayer> {
 
+    private boolean presentationEnabled;
+    private TicTacToeAdjudicator adjudicator;
+    private UpdateMode updateMode = UpdateMode.FULL;
+    private final Set<Integer> syncedPlayers = new HashSet<>();
+    private TicTacToeTimebank timebank;
+    private TicTacToeMetrics metrics;
+    private LatencyHistogram createNextStateLatency;
+    private LatencyHistogram transformLatency;
+    private LatencyHistogram hasGameEndedLatency;
+    private LatencyHistogram sendUpdatesLatency;
+
+    /* The updates of the last state sent, encoded once and shared by all players */
+    private TicTacToeState encodedState;
+    private Coordinate encodedMove;
+    private String encodedField;
+    private String encodedMacroboard;
+    private String encodedLastMove;
+
     public TicTacToeProcessor(PlayerProvider<TicTacToePlayer> playerProvider) {
+        this(playerProvider, true);
+    }
+
+    /**
+     * @param presentationEnabled False when nothing will replay the game, states then skip the
+     *                            presentation strings entirely
+     */
+    public TicTacToeProcessor(PlayerProvider<TicTacToePlayer> playerProvider, boolean presentationEnabled) {
         super(playerProvider);
+        this.presentationEnabled = presentationEnabled;
     }
 
     /**
@@ -47,34 +81,142 @@ public class TicTacToeProcessor extends PlayerResponseProcessor<TicTacToeState,
      */
     @Override
     public TicTacToeState createNextStateFromResponse(TicTacToeState state, PlayerResponse input, int roundNumber) {
+        long start = this.metrics != null ? System.nanoTime() : 0;
+
+        // parse the response
+        TicTacToeMoveDeserializer deserializer = new TicTacToeMoveDeserializer();
+        TicTacToeMove move = deserializer.traverse(input.getValue());
+
+        TicTacToePlayer player = getPlayer(input.getPlayerId());
+        long responseTime = player != null ? player.getLastResponseTime() : -1;
+        TicTacToeState nextState = createNextStateFromMove(state, input.getPlayerId(), move, roundNumber, responseTime);
+        if (this.metrics != null) {
+            this.createNextStateLatency.recordSince(start);
+        }
+        return nextState;
+    }
+
+    /**
+     * Return the TicTacToeState that will be the state for the next round, for a move that is already parsed.
+     * @param state The current TicTacToeState
+     * @param playerId The id of the player that made the move
+     * @param move The move to apply
+     * @param roundNumber The current round number
+     */
+    public TicTacToeState createNextStateFromMove(TicTacToeState state, int playerId, TicTacToeMove move, int roundNumber) {
+        return createNextStateFromMove(state, playerId, move, roundNumber, -1);
+    }
+
+    /**
+     * Return the TicTacToeState that will be the state for the next round, for a move that is already parsed.
+     * @param state The current TicTacToeState
+     * @param playerId The id of the player that made the move
+     * @param move The move to apply
+     * @param roundNumber The current round number
+     * @param responseTime Milliseconds the player took for the move, or -1 when not measured
+     */
+    public TicTacToeState createNextStateFromMove(TicTacToeState state, int playerId, TicTacToeMove move,
+                                                  int roundNumber, long responseTime) {
         /* Clone playerStates for next State */
         ArrayList<TicTacToePlayerState> nextPlayerStates = clonePlayerStates(state.getPlayerStates());
 
         TicTacToeLogic logic = new TicTacToeLogic();
         TicTacToeState nextState = state.createNextState(roundNumber);
 
-        nextState.setPlayerId(input.getPlayerId());
-        TicTacToePlayerState playerState = getActivePlayerState(nextPlayerStates, input.getPlayerId());
-
-        // parse the response
-        TicTacToeMoveDeserializer deserializer = new TicTacToeMoveDeserializer();
-        TicTacToeMove move = deserializer.traverse(input.getValue());
+        nextState.setPlayerId(playerId);
+        TicTacToePlayerState playerState = getActivePlayerState(nextPlayerStates, playerId);
 
         playerState.setMove(move);
+        if (this.timebank != null && responseTime >= 0) {
+            MoveError timeout = this.timebank.charge(playerState, responseTime);
+            if (timeout != MoveError.NONE && move.getException() == null) {
+                move.setException(timeout.toException()); /* The move is not applied */
+            }
+        }
+        long start = this.metrics != null ? System.nanoTime() : 0;
         try {
             logic.transform(nextState, playerState);
         } catch (Exception e) {
-            move.setException(new InvalidMoveException("Error parsing move"));
+            move.setException(MoveError.TRANSFORM_FAILED.toException());
+        }
+        if (this.metrics != null) {
+            this.transformLatency.recordSince(start);
+            if (move.getException() != null) {
+                String reason = MoveError.fromException(move.getException()).name().toLowerCase(Locale.ROOT);
+                this.metrics.counter(TicTacToeMetrics.INVALID_MOVES, "reason", reason).increment();
+            }
         }
         nextState.setPlayerstates(nextPlayerStates);
-        nextState.setFieldPresentationString(
-                nextState.getBoard().toPresentationString(playerState.getPlayerId(), false));
-        nextState.setPossibleMovesPresentationString(
-                nextState.getBoard().toPresentationString(playerState.getPlayerId(), true));
+        if (this.presentationEnabled) {
+            nextState.setPresentation(playerState.getPlayerId());
+        }
 
         return nextState;
     }
 
+    public boolean isPresentationEnabled() {
+        return this.presentationEnabled;
+    }
+
+    /**
+     * Ends games early when the adjudicator says the result is fixed,
+     * the final state then holds the reason
+     * @param adjudicator The adjudicator, or null to play every game out
+     */
+    public void setAdjudicator(TicTacToeAdjudicator adjudicator) {
+        this.adjudicator = adjudicator;
+    }
+
+    public UpdateMode getUpdateMode() {
+        return this.updateMode;
+    }
+
+    /**
+     * Sets what the bots are sent before every move. In DELTA mode a bot gets the whole board
+     * on its first update and after requestResync, and only the last move otherwise.
+     */
+    public void setUpdateMode(UpdateMode updateMode) {
+        this.updateMode = updateMode;
+    }
+
+    /**
+     * Makes the next update of a player a full one, for bots that lost track of the board
+     */
+    public void requestResync(int playerId) {
+        this.syncedPlayers.remove(playerId);
+    }
+
+    /**
+     * Applies time controls inside the engine: moves are charged to the timebank
+     * of the player, which forfeits after too many timeouts
+     * @param timebank The time controls, or null to leave them to the wrapper
+     */
+    public void setTimebank(TicTacToeTimebank timebank) {
+        this.timebank = timebank;
+    }
+
+    public TicTacToeTimebank getTimebank() {
+        return this.timebank;
+    }
+
+    /**
+     * Records how long the processor takes per call, and why moves were rejected
+     * @param metrics The metrics to record to, or null to stop recording
+     */
+    public void setMetrics(TicTacToeMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            this.createNextStateLatency = metrics.histogram(TicTacToeMetrics.CREATE_NEXT_STATE);
+            this.transformLatency = metrics.histogram(TicTacToeMetrics.TRANSFORM);
+            this.hasGameEndedLatency = metrics.histogram(TicTacToeMetrics.HAS_GAME_ENDED);
+            this.sendUpdatesLatency = metrics.histogram(TicTacToeMetrics.SEND_UPDATES);
+        }
+    }
+
+    public TicTacToeMetrics getMetrics() {
+        return this.metrics;
+    }
+
     private ArrayList<TicTacToePlayerState> clonePlayerStates(ArrayList<TicTacToePlayerState> playerStates) {
         ArrayList<TicTacToePlayerState> nextPlayerStates = new ArrayList<>();
         for (TicTacToePlayerState playerState : playerStates) {
@@ -86,23 +228,58 @@ public class TicTacToeProcessor extends PlayerResponseProcessor<TicTacToeState,
 
     @Override
     public void sendUpdates(TicTacToeState state, TicTacToePlayer player) {
+        if (this.metrics == null) {
+            sendUpdatesTo(state, player);
+            return;
+        }
+        long start = System.nanoTime();
+        sendUpdatesTo(state, player);
+        this.sendUpdatesLatency.recordSince(start);
+    }
+
+    private void sendUpdatesTo(TicTacToeState state, TicTacToePlayer player) {
         player.sendUpdate("round", state.getRoundNumber());
-        TicTacToeMove move = null;
+        encodeUpdates(state);
 
-        ArrayList<TicTacToePlayerState> playerStates = state.getPlayerStates();
-        for (TicTacToePlayerState playerState : playerStates) {
+        if (this.updateMode == UpdateMode.DELTA && this.encodedLastMove != null
+                && this.syncedPlayers.contains(player.getId())) {
+            player.sendUpdate("last_move", this.encodedLastMove);
+            player.sendUpdate("active_microboard", state.getBoard().getActiveMicroboard());
+            return;
+        }
+
+        if (this.encodedField == null) {
+            this.encodedField = state.getBoard().toString();
+            this.encodedMacroboard = state.getBoard().macroboardToString(this.encodedMove);
+        }
+        player.sendUpdate("field", this.encodedField);
+        player.sendUpdate("macroboard", this.encodedMacroboard);
+        this.syncedPlayers.add(player.getId());
+    }
+
+    /**
+     * Prepares the updates of a state the first time it is sent, the full board
+     * is only encoded once a player needs it
+     */
+    private void encodeUpdates(TicTacToeState state) {
+        if (state == this.encodedState) {
+            return;
+        }
+        TicTacToeMove move = null;
+        for (TicTacToePlayerState playerState : state.getPlayerStates()) {
             if (playerState.getMove() != null) {
                 move = playerState.getMove();
             }
         }
 
-        player.sendUpdate("field", state.getBoard().toString());
-
-        if (move != null && move.getCoordinate() != null) {
-            state.getBoard().updateMacroboard(move.getCoordinate());
-            player.sendUpdate("macroboard", state.getBoard().macroboardToString(move.getCoordinate()));
-        } else {
-            player.sendUpdate("macroboard", state.getBoard().macroboardToString(null));
+        this.encodedState = state;
+        this.encodedMove = move != null ? move.getCoordinate() : null;
+        this.encodedField = null;
+        this.encodedMacroboard = null;
+        this.encodedLastMove = null;
+        state.getBoard().updateMacroboard(this.encodedMove);
+        if (this.encodedMove != null && move.getException() == null) {
+            this.encodedLastMove = this.encodedMove.x + " " + this.encodedMove.y;
         }
     }
 
@@ -113,7 +290,18 @@ public class TicTacToeProcessor extends PlayerResponseProcessor<TicTacToeState,
 
     @Override
     public boolean hasGameEnded(TicTacToeState state) {
-        return getWinnerId(state) != null || state.getBoard().boardIsFull() || state.getBoard().macroboardIsFull();
+        if (this.metrics == null) {
+            return gameHasEnded(state);
+        }
+        long start = System.nanoTime();
+        boolean ended = gameHasEnded(state);
+        this.hasGameEndedLatency.recordSince(start);
+        return ended;
+    }
+
+    private boolean gameHasEnded(TicTacToeState state) {
+        return getWinnerId(state) != null || state.getBoard().boardIsFull() || state.getBoard().macroboardIsFull()
+                || adjudicate(state) != AdjudicationReason.NONE;
     }
 
     @Override
@@ -122,16 +310,57 @@ public class TicTacToeProcessor extends PlayerResponseProcessor<TicTacToeState,
         TicTacToeMove move = ps.getMove();
 
         if (move != null && move.getCoordinate() != null) {
-            state.getBoard().updateMacroboard(move.getCoordinate());
+            state.getBoard().updateMacroboard(move.getCoordinate().x, move.getCoordinate().y);
         } else {
-            state.getBoard().updateMacroboard(null);
+            state.getBoard().updateMacroboard(-1, -1);
         }
 
         if (move != null && move.getException() != null) {
             // Player messed up
             return getOtherPlayerId(state.getPlayerId());
         }
-        return state.getBoard().getMacroboardWinner();
+        Integer winner = state.getBoard().getMacroboardWinner();
+        if (winner == null && adjudicate(state) != AdjudicationReason.NONE) {
+            return state.getAdjudicatedWinner();
+        }
+        return winner;
+    }
+
+    /**
+     * Asks the adjudicator whether a game without winner can end after this state,
+     * and stores the reason and winner on the state, so it is asked once per state.
+     * Without an adjudicator the reason already stored on the state stands.
+     * @return The reason to end the game, or NONE
+     */
+    private AdjudicationReason adjudicate(TicTacToeState state) {
+        TicTacToeBoard board = state.getBoard();
+        if (this.adjudicator == null || state.isAdjudicated()) {
+            return state.getAdjudication();
+        }
+        if (state.getMoveNumber() == 0 || board.getMacroboardWinner() != null
+                || board.boardIsFull() || board.macroboardIsFull()) {
+            return AdjudicationReason.NONE; /* Not started, or ended by the rules */
+        }
+        Integer playerToMove = getOtherPlayerId(state.getPlayerId());
+        if (playerToMove == null) {
+            return AdjudicationReason.NONE;
+        }
+        AdjudicationReason reason = this.adjudicator.adjudicate(board, playerToMove);
+        Integer winner = null;
+        if (reason != AdjudicationReason.NONE) {
+            winner = this.adjudicator.getWinner(board, playerToMove, reason);
+        }
+        state.setAdjudication(reason, winner);
+        return reason;
+    }
+
+    private TicTacToePlayer getPlayer(int playerId) {
+        for (TicTacToePlayer player : this.playerProvider.getPlayers()) {
+            if (player.getId() == playerId) {
+                return player;
+            }
+        }
+        return null;
     }
 
     private Integer getOtherPlayerId(int playerId) {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor;
+
+import io.riddles.tictactoe.game.move.MoveError;
+import io.riddles.tictactoe.game.state.TicTacToePlayerState;
+
+/**
+ * TicTacToeTimebank applies the time controls of the wrapper inside the engine.
+ *
+ * Every player starts with timebankMax milliseconds. The time a move takes is taken from
+ * the bank, after which timePerMove is added for the next move, up to timebankMax. A move
+ * that takes longer than the bank is a timeout: the bank is emptied and the move still
+ * counts, until the player has more than maxTimeouts timeouts and forfeits.
+ */
+public class TicTacToeTimebank {
+
+    private final long timebankMax;
+    private final long timePerMove;
+    private final int maxTimeouts;
+
+    public TicTacToeTimebank(long timebankMax, long timePerMove, int maxTimeouts) {
+        this.timebankMax = timebankMax;
+        this.timePerMove = timePerMove;
+        this.maxTimeouts = maxTimeouts;
+    }
+
+    /**
+     * Takes the time of a move from the timebank of the player
+     * @param playerState The state of the player that made the move, its timebank is updated
+     * @param responseTime Milliseconds the move took
+     * @return TIMEOUT when the player forfeits on time, NONE otherwise
+     */
+    public MoveError charge(TicTacToePlayerState playerState, long responseTime) {
+        long timebank = playerState.getTimebank() >= 0 ? playerState.getTimebank() : this.timebankMax;
+
+        if (responseTime > timebank) {
+            playerState.setTimeouts(playerState.getTimeouts() + 1);
+            timebank = 0;
+        } else {
+            timebank -= responseTime;
+        }
+        playerState.setTimebank(Math.min(timebank + this.timePerMove, this.timebankMax));
+
+        return playerState.getTimeouts() > this.maxTimeouts ? MoveError.TIMEOUT : MoveError.NONE;
+    }
+
+    public long getTimebankMax() {
+        return this.timebankMax;
+    }
+
+    public long getTimePerMove() {
+        return this.timePerMove;
+    }
+
+    public int getMaxTimeouts() {
+        return this.maxTimeouts;
+    }
+}
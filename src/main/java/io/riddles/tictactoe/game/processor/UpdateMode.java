@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor;
+
+/**
+ * UpdateMode enumerates how the board is sent to the bots before every move,
+ * with the numeric code used for it in the engine configuration.
+ */
+public enum UpdateMode {
+    FULL(0, "full"),   /* The whole field and macroboard, every move */
+    DELTA(1, "delta"); /* Only the last move and the active microboard, after one full update */
+
+    private final int code;
+    private final String name;
+
+    UpdateMode(int code, String name) {
+        this.code = code;
+        this.name = name;
+    }
+
+    public int getCode() {
+        return this.code;
+    }
+
+    /**
+     * @return The value of the update_mode setting sent to the bots
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return The mode with given code, FULL when the code is unknown
+     */
+    public static UpdateMode fromCode(int code) {
+        for (UpdateMode mode : values()) {
+            if (mode.code == code) {
+                return mode;
+            }
+        }
+        return FULL;
+    }
+}
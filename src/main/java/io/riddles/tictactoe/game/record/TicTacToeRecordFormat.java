@@ -0,0 +1,249 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.record;
+
+import io.riddles.javainterface.game.player.PlayerProvider;
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.data.TicTacToeGeometry;
+import io.riddles.tictactoe.game.move.MoveError;
+import io.riddles.tictactoe.game.move.TicTacToeMove;
+import io.riddles.tictactoe.game.player.TicTacToePlayer;
+import io.riddles.tictactoe.game.processor.AdjudicationReason;
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
+import io.riddles.tictactoe.game.state.TicTacToePlayerState;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * TicTacToeRecordFormat encodes a played game as a compact binary record and rebuilds
+ * the TicTacToeState chain from it.
+ *
+ * Record layout (big endian):
+ * byte    version
+ * byte    field width
+ * byte    field height
+ * byte    player count, followed by one byte per player id
+ * byte    winner id, or -1 for a draw
+ * byte    AdjudicationReason code of the last state, since version 2
+ * byte    flags, since version 3: FLAG_TIMEBANKS when timebanks were tracked
+ * byte    line length, since version 4, older records use full rows of a microboard
+ * short   number of moves, followed by two bytes per move:
+ *         byte cell (y * width + x), or 0xFF when the move has no coordinate on the board,
+ *              since version 5 a short, or 0xFFFF, on boards of more than 255 cells
+ *         byte player index (high nibble) and MoveError code (low nibble)
+ *         and with FLAG_TIMEBANKS five more bytes for the player that moved:
+ *         int  timebank in ms after the move, or -1 when it was not tracked
+ *         byte timeouts so far
+ *
+ * Only the moves are stored, boards are rebuilt by replaying them through the processor.
+ * Adjudications are stored rather than replayed, as the tablebase that decided them may
+ * not be around when the record is read. Older versions can still be decoded.
+ */
+public final class TicTacToeRecordFormat {
+
+    public static final int VERSION = 5;
+    public static final int FLAG_TIMEBANKS = 1;
+
+    private static final int NO_CELL = 0xFF;
+    private static final int NO_WIDE_CELL = 0xFFFF;
+    private static final int NO_WINNER = -1;
+
+    private TicTacToeRecordFormat() {}
+
+    /**
+     * Encodes the game that starts at given state
+     * @param processor The processor that played the game
+     * @param initialState The first state of the game
+     * @return Buffer ready to be read, containing one record
+     */
+    public static ByteBuffer encode(TicTacToeProcessor processor, TicTacToeState initialState) {
+        TicTacToeBoard board = initialState.getBoard();
+        int width = board.getWidth();
+        int height = board.getHeight();
+        boolean wideCells = hasWideCells(width, height);
+
+        ArrayList<TicTacToePlayerState> playerStates = initialState.getPlayerStates();
+        int moveCount = 0;
+        TicTacToeState finalState = initialState;
+        while (finalState.hasNextState()) {
+            finalState = (TicTacToeState) finalState.getNextState();
+            moveCount++;
+        }
+        Integer winner = processor.getWinnerId(finalState);
+        int flags = hasTimebanks(initialState) ? FLAG_TIMEBANKS : 0;
+        int moveSize = ((flags & FLAG_TIMEBANKS) != 0 ? 7 : 2) + (wideCells ? 1 : 0);
+
+        ByteBuffer record = ByteBuffer.allocate(10 + playerStates.size() + moveCount * moveSize);
+        record.put((byte) VERSION);
+        record.put((byte) width);
+        record.put((byte) height);
+        record.put((byte) playerStates.size());
+        for (TicTacToePlayerState playerState : playerStates) {
+            record.put((byte) playerState.getPlayerId());
+        }
+        record.put((byte) (winner != null ? winner : NO_WINNER));
+        record.put((byte) finalState.getAdjudication().getCode());
+        record.put((byte) flags);
+        record.put((byte) board.getLineLength());
+        record.putShort((short) moveCount);
+
+        TicTacToeState state = initialState;
+        while (state.hasNextState()) {
+            state = (TicTacToeState) state.getNextState();
+            TicTacToeMove move = state.getPlayerStateById(state.getPlayerId()).getMove();
+            MoveError error = MoveError.fromException(move.getException());
+            Coordinate c = move.getCoordinate();
+
+            int cell = wideCells ? NO_WIDE_CELL : NO_CELL;
+            if (c != null && c.x >= 0 && c.y >= 0 && c.x < width && c.y < height && hasCoordinate(error)) {
+                cell = c.y * width + c.x;
+            }
+            if (wideCells) {
+                record.putShort((short) cell);
+            } else {
+                record.put((byte) cell);
+            }
+            record.put((byte) (getPlayerIndex(playerStates, state.getPlayerId()) << 4 | error.getCode()));
+            if ((flags & FLAG_TIMEBANKS) != 0) {
+                TicTacToePlayerState playerState = state.getPlayerStateById(state.getPlayerId());
+                record.putInt((int) Math.min(Integer.MAX_VALUE, playerState.getTimebank()));
+                record.put((byte) Math.min(Byte.MAX_VALUE, playerState.getTimeouts()));
+            }
+        }
+
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Rebuilds the state chain of an encoded game
+     * @param record Buffer positioned at the start of a record
+     * @return The initial state of the game
+     */
+    public static TicTacToeState decode(ByteBuffer record) throws IOException {
+        int version = record.get();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported record version " + version);
+        }
+        int width = record.get() & 0xFF;
+        int height = record.get() & 0xFF;
+        int[] playerIds = new int[record.get()];
+
+        PlayerProvider<TicTacToePlayer> playerProvider = new PlayerProvider<>();
+        ArrayList<TicTacToePlayerState> playerStates = new ArrayList<>();
+        for (int i = 0; i < playerIds.length; i++) {
+            playerIds[i] = record.get();
+            playerProvider.add(new TicTacToePlayer(playerIds[i]));
+            playerStates.add(new TicTacToePlayerState(playerIds[i]));
+        }
+        int winner = record.get();
+        AdjudicationReason adjudication = AdjudicationReason.NONE;
+        int flags = 0;
+        if (version >= 2) {
+            adjudication = AdjudicationReason.fromCode(record.get());
+        }
+        if (version >= 3) {
+            flags = record.get();
+        }
+        int lineLength = version >= 4 ? record.get() : TicTacToeGeometry.getSize(width, height);
+        int moveCount = record.getShort() & 0xFFFF;
+        boolean wideCells = version >= 5 && hasWideCells(width, height);
+        int noCell = wideCells ? NO_WIDE_CELL : NO_CELL;
+
+        TicTacToeProcessor processor = new TicTacToeProcessor(playerProvider);
+        TicTacToeState initialState = new TicTacToeState(new TicTacToeBoard(width, height, lineLength), playerStates);
+        initialState.setPresentation(1); /* Player 0 moves first, so render as if player 1 just moved */
+
+        TicTacToeState state = initialState;
+        for (int i = 0; i < moveCount; i++) {
+            int cell = wideCells ? record.getShort() & 0xFFFF : record.get() & 0xFF;
+            int info = record.get() & 0xFF;
+            MoveError error = MoveError.fromCode(info & 0x0F);
+
+            TicTacToeMove move;
+            if (cell != noCell) {
+                move = new TicTacToeMove(Coordinate.of(cell % width, cell / width));
+            } else if (error != MoveError.NONE) {
+                move = new TicTacToeMove(error.toException());
+            } else {
+                throw new IOException("Move " + i + " has no coordinate and no error");
+            }
+            state = processor.createNextStateFromMove(state, playerIds[info >> 4], move, i / playerIds.length + 1);
+            if ((flags & FLAG_TIMEBANKS) != 0) {
+                TicTacToePlayerState playerState = state.getPlayerStateById(playerIds[info >> 4]);
+                playerState.setTimebank(record.getInt());
+                playerState.setTimeouts(record.get());
+            }
+        }
+        if (adjudication != AdjudicationReason.NONE) {
+            state.setAdjudication(adjudication, winner != NO_WINNER ? winner : null);
+        }
+
+        return initialState;
+    }
+
+    /**
+     * Reads the winner from the header of a record without replaying it
+     * @param record Buffer positioned at the start of a record
+     * @return Id of the winner, or null for a draw
+     */
+    public static Integer decodeWinner(ByteBuffer record) {
+        int playerCount = record.get(record.position() + 3);
+        int winner = record.get(record.position() + 4 + playerCount);
+        return winner != NO_WINNER ? winner : null;
+    }
+
+    /**
+     * Returns whether cells are stored as shorts, as 0xFF is no cell when stored as bytes
+     */
+    private static boolean hasWideCells(int width, int height) {
+        return width * height > NO_CELL;
+    }
+
+    private static boolean hasTimebanks(TicTacToeState initialState) {
+        for (TicTacToeState state = initialState; state.hasNextState(); ) {
+            state = (TicTacToeState) state.getNextState();
+            if (state.getPlayerStateById(state.getPlayerId()).getTimebank() >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the rules decided the error, so replaying the coordinate gives the same error again
+     */
+    private static boolean hasCoordinate(MoveError error) {
+        return error == MoveError.NONE || error == MoveError.NOT_IN_ACTIVE_MICROBOARD || error == MoveError.FIELD_FILLED;
+    }
+
+    private static int getPlayerIndex(ArrayList<TicTacToePlayerState> playerStates, int playerId) {
+        for (int i = 0; i < playerStates.size(); i++) {
+            if (playerStates.get(i).getPlayerId() == playerId) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown player " + playerId);
+    }
+}
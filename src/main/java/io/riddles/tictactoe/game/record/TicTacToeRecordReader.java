@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.record;
+
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TicTacToeRecordReader reads games from an archive written by TicTacToeRecordWriter.
+ * The index file is memory mapped, so finding game N is a single lookup.
+ *
+ * @see TicTacToeRecordFormat
+ */
+public class TicTacToeRecordReader implements Closeable {
+
+    private final FileChannel archive;
+    private final MappedByteBuffer index;
+    private final int gameCount;
+
+    public TicTacToeRecordReader(Path archivePath, Path indexPath) throws IOException {
+        this.archive = FileChannel.open(archivePath, StandardOpenOption.READ);
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            this.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+        }
+        this.gameCount = this.index.capacity() / Long.BYTES;
+    }
+
+    public int getGameCount() {
+        return this.gameCount;
+    }
+
+    /**
+     * Reads the raw record of game N
+     * @param game Index of the game in the archive
+     * @return Buffer ready to be read, containing one record
+     */
+    public ByteBuffer readRecord(int game) throws IOException {
+        if (game < 0 || game >= this.gameCount) {
+            throw new IndexOutOfBoundsException("Game " + game + " not in archive of " + this.gameCount + " games");
+        }
+        long start = this.index.getLong(game * Long.BYTES);
+        long end = game + 1 < this.gameCount ? this.index.getLong((game + 1) * Long.BYTES) : this.archive.size();
+
+        ByteBuffer record = ByteBuffer.allocate((int) (end - start));
+        while (record.hasRemaining()) {
+            if (this.archive.read(record, start + record.position()) < 0) {
+                throw new IOException("Archive ends inside game " + game);
+            }
+        }
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Rebuilds the state chain of game N
+     * @param game Index of the game in the archive
+     * @return The initial state of the game
+     */
+    public TicTacToeState readGame(int game) throws IOException {
+        return TicTacToeRecordFormat.decode(readRecord(game));
+    }
+
+    /**
+     * Reads the winner of game N without replaying it
+     * @param game Index of the game in the archive
+     * @return Id of the winner, or null for a draw
+     */
+    public Integer readWinner(int game) throws IOException {
+        return TicTacToeRecordFormat.decodeWinner(readRecord(game));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.archive.close();
+    }
+}
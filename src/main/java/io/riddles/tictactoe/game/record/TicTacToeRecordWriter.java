@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.record;
+
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor;
+import io.riddles.tictactoe.game.state.TicTacToeState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TicTacToeRecordWriter appends binary game records to an archive file, and the offset
+ * of every record to an index file of 8 byte entries, so game N can be found directly.
+ *
+ * @see TicTacToeRecordFormat
+ * @see TicTacToeRecordReader
+ */
+public class TicTacToeRecordWriter implements Closeable {
+
+    private final FileChannel archive;
+    private final FileChannel index;
+
+    public TicTacToeRecordWriter(Path archivePath, Path indexPath) throws IOException {
+        this.archive = FileChannel.open(archivePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.archive.position(this.archive.size());
+        this.index.position(this.index.size());
+    }
+
+    /**
+     * Appends the game that starts at given state to the archive
+     * @param processor The processor that played the game
+     * @param initialState The first state of the game
+     */
+    public synchronized void write(TicTacToeProcessor processor, TicTacToeState initialState) throws IOException {
+        ByteBuffer record = TicTacToeRecordFormat.encode(processor, initialState);
+        ByteBuffer entry = ByteBuffer.allocate(Long.BYTES);
+        entry.putLong(0, this.archive.position());
+
+        while (record.hasRemaining()) {
+            this.archive.write(record);
+        }
+        while (entry.hasRemaining()) {
+            this.index.write(entry);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            this.archive.close();
+        } finally {
+            this.index.close();
+        }
+    }
+}
@@ -23,14 +23,47 @@ import io.riddles.javainterface.game.state.AbstractPlayerState;
 import io.riddles.tictactoe.game.move.TicTacToeMove;
 
 
+/**
+ * TicTacToePlayerState holds the move of a player in a state, and the time the player has
+ * left when the engine applies time controls. The move is not carried over to the next
+ * state, the timebank and timeouts are.
+ */
 public class TicTacToePlayerState extends AbstractPlayerState<TicTacToeMove> {
 
+    private long timebank = -1;
+    private int timeouts;
+
     public TicTacToePlayerState(int playerId) {
         super(playerId);
     }
 
     public TicTacToePlayerState clone() {
-        return new TicTacToePlayerState(this.playerId);
+        TicTacToePlayerState playerState = new TicTacToePlayerState(this.playerId);
+        playerState.timebank = this.timebank;
+        playerState.timeouts = this.timeouts;
+        return playerState;
+    }
+
+    /**
+     * @return Milliseconds the player has left for its next move, or -1 without time controls
+     */
+    public long getTimebank() {
+        return this.timebank;
+    }
+
+    public void setTimebank(long timebank) {
+        this.timebank = timebank;
+    }
+
+    /**
+     * @return The number of moves the player ran out of time on so far
+     */
+    public int getTimeouts() {
+        return this.timeouts;
+    }
+
+    public void setTimeouts(int timeouts) {
+        this.timeouts = timeouts;
     }
 
     public int getPlayerId() {
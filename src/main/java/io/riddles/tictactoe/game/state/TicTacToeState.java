@@ -21,8 +21,8 @@ package io.riddles.tictactoe.game.state;
 
 import io.riddles.javainterface.game.player.PlayerBound;
 import io.riddles.javainterface.game.state.AbstractState;
-import io.riddles.tictactoe.engine.TicTacToeEngine;
 import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.processor.AdjudicationReason;
 
 import java.util.ArrayList;
 
@@ -31,6 +31,9 @@ import java.util.ArrayList;
  *
  * TicTacToeState extends AbstractState and is used to store game specific data per state.
  * It can be initialised to store a TicTacToePlayerState, or multiple TicTacToePlayerStates in an ArrayList.
+ * The board is a copy-on-write snapshot of the board of the previous state, so states only
+ * hold their own cell masks once a move has been applied to them.
+ * Presentation strings are not stored, they are rendered from the board when the serializer asks for them.
  *
  * @author joost
  */
@@ -38,8 +41,14 @@ public class TicTacToeState extends AbstractState<TicTacToePlayerState> implemen
 
     private TicTacToeBoard board;
     private String mPossibleMovesString, mFieldPresentationString;
+    private boolean hasPresentation;
+    private int presentationPlayerId;
+    private int presentationMicroboards;
     private int playerId;
     private int moveNumber;
+    private AdjudicationReason adjudication = AdjudicationReason.NONE;
+    private Integer adjudicatedWinner;
+    private boolean adjudicated;
 
 //    public TicTacToeState(TicTacToeState previousState, TicTacToePlayerState playerState,
 //                          int roundNumber, String possibleMovesString, String fieldPresentationString) {
@@ -50,19 +59,31 @@ public class TicTacToeState extends AbstractState<TicTacToePlayerState> implemen
 //
 //    }
 
+    /**
+     * Creates a state that continues on a copy of the board of the previous state.
+     * Without a previous state the board has to be set with setBoard, or use
+     * TicTacToeState(TicTacToeBoard, ArrayList) for initial states instead.
+     */
     public TicTacToeState(TicTacToeState previousState, ArrayList<TicTacToePlayerState> playerState, int roundNumber, int moveNumber) {
         super(previousState, playerState, roundNumber);
         this.moveNumber = moveNumber;
 
         if (previousState != null) {
             this.board = new TicTacToeBoard(previousState.getBoard());
-        } else {
-            this.board = new TicTacToeBoard(
-                    TicTacToeEngine.configuration.getInt("fieldWidth"),
-                    TicTacToeEngine.configuration.getInt("fieldHeight"));
         }
     }
 
+    /**
+     * Creates the initial state of a game on given board.
+     * @param board The empty board
+     * @param playerStates The TicTacToePlayerStates of all players
+     */
+    public TicTacToeState(TicTacToeBoard board, ArrayList<TicTacToePlayerState> playerStates) {
+        super(null, playerStates, 0);
+        this.moveNumber = 0;
+        this.board = board;
+    }
+
     /**
      * createNextState creates new objects needed for a new state.
      * @param roundNumber roundNumber
@@ -81,11 +102,28 @@ public class TicTacToeState extends AbstractState<TicTacToePlayerState> implemen
         this.board = b;
     }
 
+    /**
+     * Remembers what is needed to render the presentation strings of this state later on:
+     * the cells of the board do not change anymore, but the available microboards do.
+     * @param playerId The player that made the move of this state
+     */
+    public void setPresentation(int playerId) {
+        this.hasPresentation = true;
+        this.presentationPlayerId = playerId;
+        this.presentationMicroboards = this.board.getAvailableMicroboards();
+    }
+
     public String getPossibleMovesPresentationString() {
+        if (mPossibleMovesString == null && hasPresentation) {
+            return board.toPresentationString(presentationPlayerId, true, presentationMicroboards);
+        }
         return mPossibleMovesString;
     }
 
     public String getFieldPresentationString() {
+        if (mFieldPresentationString == null && hasPresentation) {
+            return board.toPresentationString(presentationPlayerId, false, presentationMicroboards);
+        }
         return mFieldPresentationString;
     }
 
@@ -108,4 +146,41 @@ public class TicTacToeState extends AbstractState<TicTacToePlayerState> implemen
     public int getMoveNumber() {
         return this.moveNumber;
     }
+
+    /**
+     * @return Why the game was ended after this state without being played out, or NONE
+     */
+    public AdjudicationReason getAdjudication() {
+        return this.adjudication;
+    }
+
+    public void setAdjudication(AdjudicationReason adjudication) {
+        this.adjudication = adjudication;
+    }
+
+    /**
+     * Stores an adjudication that was decided, by the adjudicator or before, such as one read
+     * back from a record, so a processor without the adjudicator that decided it still ends
+     * the game there
+     * @param winner The id of the winner, or null for a draw
+     */
+    public void setAdjudication(AdjudicationReason adjudication, Integer winner) {
+        this.adjudication = adjudication;
+        this.adjudicatedWinner = winner;
+        this.adjudicated = true;
+    }
+
+    /**
+     * @return Whether the adjudication and winner of this state were decided with setAdjudication
+     */
+    public boolean isAdjudicated() {
+        return this.adjudicated;
+    }
+
+    /**
+     * @return The winner stored with setAdjudication, or null for a draw
+     */
+    public Integer getAdjudicatedWinner() {
+        return this.adjudicatedWinner;
+    }
 }
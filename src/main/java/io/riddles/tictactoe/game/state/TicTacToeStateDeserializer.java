@@ -19,11 +19,19 @@
 
 package io.riddles.tictactoe.game.state;
 
+import io.riddles.javainterface.exception.InvalidInputException;
+import io.riddles.tictactoe.game.data.Coordinate;
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.move.MoveError;
+import io.riddles.tictactoe.game.move.TicTacToeMove;
 import io.riddles.tictactoe.game.player.TicTacToePlayer;
-import org.json.JSONArray;
+import io.riddles.tictactoe.game.processor.AdjudicationReason;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 
 import io.riddles.javainterface.game.state.AbstractStateDeserializer;
@@ -31,32 +39,118 @@ import io.riddles.javainterface.game.state.AbstractStateDeserializer;
 /**
  * TicTacToeStateDeserializer takes a serialised String and returns a TicTacToeState.
  *
+ * It accepts the output of TicTacToeSerializer, a bare array of states or a single state,
+ * and rebuilds the linked TicTacToeState chain: boards are restored from the "field"
+ * presentation strings, and moves from the difference between consecutive boards.
+ * The line length is taken from the settings of the game, which come before its states.
+ * States are pulled from the input one at a time, the states array is never built in memory.
+ *
  * @author jim
  */
 public class TicTacToeStateDeserializer extends
         AbstractStateDeserializer<TicTacToePlayer, TicTacToeState> {
 
+    private final ArrayList<TicTacToePlayer> players;
+    private int lineLength;
+
     /* Constructor */
     public TicTacToeStateDeserializer(ArrayList<TicTacToePlayer> players) {
         super(players);
+        this.players = players;
     }
 
+    /**
+     * @return The last state of the chain, earlier states are reached through getPreviousState()
+     */
     @Override
     public TicTacToeState traverse(String statesString) throws JSONException {
+        return traverse(new StringReader(statesString));
+    }
+
+    /**
+     * @see #traverse(String)
+     */
+    public TicTacToeState traverse(Reader statesReader) throws JSONException {
+        JSONTokener tokener = new JSONTokener(statesReader);
+        this.lineLength = 0;
+        char c = tokener.nextClean();
+
+        if (c == '[') {
+            return visitStates(tokener);
+        } else if (c == '{') {
+            return visitObject(tokener);
+        }
+        throw new JSONException("Input string is not array and not object");
+    }
+
+    /**
+     * Reads a game object up to its states array, or a single state when there is none
+     */
+    private TicTacToeState visitObject(JSONTokener tokener) throws JSONException {
+        JSONObject stateJson = new JSONObject();
+        TicTacToeState state = null;
+        boolean hasStates = false;
+
+        char c = tokener.nextClean();
+        while (c != '}') {
+            tokener.back();
+            String key = tokener.nextValue().toString();
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a key");
+            }
+            if (key.equals("states") && tokener.nextClean() == '[') {
+                state = visitStates(tokener);
+                hasStates = true;
+            } else {
+                if (key.equals("states")) {
+                    tokener.back();
+                }
+                Object value = tokener.nextValue();
+                if (key.equals("settings") && value instanceof JSONObject) {
+                    this.lineLength = ((JSONObject) value).optInt("line_length");
+                }
+                if (!hasStates) {
+                    stateJson.put(key, value);
+                }
+            }
+
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != '}') {
+                throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+        }
+
+        if (hasStates) {
+            return state;
+        }
+        return visitState(stateJson, null);
+    }
+
+    private TicTacToeState visitStates(JSONTokener tokener) throws JSONException {
         TicTacToeState state = null;
-        Object states = new JSONObject(statesString);
 
-        if (states instanceof JSONArray) {
-            JSONArray statesJson = (JSONArray) states;
-            for (int i = 0; i < statesJson.length(); i++) {
-                JSONObject stateJson = statesJson.getJSONObject(i);
+        char c = tokener.nextClean();
+        while (c != ']') {
+            tokener.back();
+            Object value = tokener.nextValue();
+            if (!(value instanceof JSONObject)) {
+                throw tokener.syntaxError("State is not an object");
+            }
+            JSONObject stateJson = (JSONObject) value;
+
+            /* Every state but the last one is followed by a copy that shows the possible moves */
+            if (state == null || stateJson.getInt("move") != state.getMoveNumber()) {
                 state = visitState(stateJson, state);
             }
-        } else if (states instanceof JSONObject) {
-            JSONObject stateJson = (JSONObject) states;
-            state = visitState(stateJson, null);
-        } else {
-            throw new JSONException("Input string is not array and not object");
+
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != ']') {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
         }
 
         return state;
@@ -64,8 +158,97 @@ public class TicTacToeStateDeserializer extends
 
     private TicTacToeState visitState(JSONObject stateJson,
                                       TicTacToeState previousState) throws JSONException {
-        int roundNumber = stateJson.getInt("round");
-        return null;
+        int moveNumber = stateJson.getInt("move");
+        String field = stateJson.getString("field");
+        int size = (int) Math.round(Math.sqrt(countCells(field)));
+
+        ArrayList<TicTacToePlayerState> playerStates = new ArrayList<>();
+        for (TicTacToePlayer player : this.players) {
+            playerStates.add(previousState != null /* Keeps the timebanks */
+                    ? previousState.getPlayerStateById(player.getId()).clone()
+                    : new TicTacToePlayerState(player.getId()));
+        }
+
+        if (previousState == null && moveNumber == 0) {
+            TicTacToeState state = new TicTacToeState(createBoard(size), playerStates);
+            state.setPresentation(1); /* Player 0 moves first, so render as if player 1 just moved */
+            return state;
+        }
+
+        int roundNumber = (moveNumber - 1) / this.players.size() + 1;
+        TicTacToeState state;
+        if (previousState != null) {
+            state = new TicTacToeState(previousState, playerStates, roundNumber, moveNumber);
+        } else {
+            state = new TicTacToeState(createBoard(size), playerStates);
+        }
+
+        /* Find the cell that was placed by this move */
+        TicTacToeBoard board = state.getBoard();
+        int playerId = this.players.get((moveNumber - 1) % this.players.size()).getId();
+        Coordinate coordinate = null;
+        int index = 0;
+        int value = 0;
+        for (int i = 0; i <= field.length(); i++) {
+            char c = i < field.length() ? field.charAt(i) : ',';
+            if (c != ',') {
+                value = value * 10 + (c - '0');
+                continue;
+            }
+            int x = index % size;
+            int y = index / size;
+            int cell = (value & 1) != 0 ? 0 : (value & 2) != 0 ? 1 : TicTacToeBoard.EMPTY_CELL;
+            if (cell != board.getCell(x, y)) {
+                board.setCell(x, y, cell);
+                if (cell != TicTacToeBoard.EMPTY_CELL) {
+                    playerId = cell;
+                    coordinate = Coordinate.of(x, y);
+                }
+            }
+            index++;
+            value = 0;
+        }
+
+        TicTacToeMove move;
+        String error = stateJson.optString("error");
+        if (!error.isEmpty()) {
+            MoveError moveError = MoveError.fromMessage(error);
+            move = new TicTacToeMove(moveError != MoveError.UNKNOWN
+                    ? moveError.toException() : new InvalidInputException(error));
+        } else {
+            move = new TicTacToeMove(coordinate);
+        }
+        if (coordinate != null) {
+            board.updateMacroboard(coordinate.x, coordinate.y);
+        }
+
+        state.setPlayerId(playerId);
+        TicTacToePlayerState playerState = state.getPlayerStateById(playerId);
+        playerState.setMove(move);
+        playerState.setTimebank(stateJson.optLong("timebank", -1));
+        playerState.setTimeouts(stateJson.optInt("timeouts"));
+        state.setPresentation(playerId);
+        state.setAdjudication(AdjudicationReason.fromCode(stateJson.optInt("adjudication")));
+        return state;
     }
 
+    /**
+     * Creates an empty board with the line length of the game settings, if they had one
+     */
+    private TicTacToeBoard createBoard(int size) {
+        if (this.lineLength > 0) {
+            return new TicTacToeBoard(size, size, this.lineLength);
+        }
+        return new TicTacToeBoard(size, size);
+    }
+
+    private int countCells(String field) {
+        int count = 1;
+        for (int i = 0; i < field.length(); i++) {
+            if (field.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
 }
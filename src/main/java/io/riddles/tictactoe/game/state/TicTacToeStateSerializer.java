@@ -20,6 +20,7 @@
 package io.riddles.tictactoe.game.state;
 
 import io.riddles.tictactoe.game.move.TicTacToeMove;
+import io.riddles.tictactoe.game.processor.AdjudicationReason;
 import org.json.JSONObject;
 import io.riddles.javainterface.game.state.AbstractStateSerializer;
 
@@ -46,7 +47,8 @@ public class TicTacToeStateSerializer extends AbstractStateSerializer<TicTacToeS
 
         stateJson.put("move", state.getMoveNumber());
 
-        TicTacToeMove move = state.getPlayerStateById(state.getPlayerId()).getMove();
+        TicTacToePlayerState playerState = state.getPlayerStateById(state.getPlayerId());
+        TicTacToeMove move = playerState.getMove();
 
         if (showPossibleMoves) {
             stateJson.put("field", state.getPossibleMovesPresentationString());
@@ -62,6 +64,15 @@ public class TicTacToeStateSerializer extends AbstractStateSerializer<TicTacToeS
             }
         }
 
+        if (playerState.getTimebank() >= 0) { /* Only with time controls in the engine */
+            stateJson.put("timebank", playerState.getTimebank());
+            stateJson.put("timeouts", playerState.getTimeouts());
+        }
+
+        if (state.getAdjudication() != AdjudicationReason.NONE) {
+            stateJson.put("adjudication", state.getAdjudication().getCode());
+        }
+
         return stateJson;
     }
 }
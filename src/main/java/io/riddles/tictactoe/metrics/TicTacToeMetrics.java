@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.metrics;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TicTacToeMetrics holds the latency histograms and counters of the engine, by name and an
+ * optional label. Histograms and counters are created on first use and can be updated from
+ * any thread; callers on hot paths look them up once and keep the reference.
+ *
+ * The metrics are exported as JSON, with durations in microseconds, or in the Prometheus
+ * text format, with durations in seconds.
+ */
+public class TicTacToeMetrics {
+
+    public static final String BOT_RESPONSE = "bot_response";
+    public static final String CREATE_NEXT_STATE = "create_next_state";
+    public static final String TRANSFORM = "transform";
+    public static final String HAS_GAME_ENDED = "has_game_ended";
+    public static final String SEND_UPDATES = "send_updates";
+    public static final String SERIALIZE = "serialize";
+    public static final String INVALID_MOVES = "invalid_moves";
+
+    private static final String PREFIX = "tictactoe_";
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final ConcurrentMap<MetricKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MetricKey, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public LatencyHistogram histogram(String name) {
+        return histogram(name, null, null);
+    }
+
+    public LatencyHistogram histogram(String name, String label, String value) {
+        return this.histograms.computeIfAbsent(new MetricKey(name, label, value), key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name) {
+        return counter(name, null, null);
+    }
+
+    public LongAdder counter(String name, String label, String value) {
+        return this.counters.computeIfAbsent(new MetricKey(name, label, value), key -> new LongAdder());
+    }
+
+    public JSONObject toJson() {
+        JSONArray histograms = new JSONArray();
+        for (Map.Entry<MetricKey, LatencyHistogram> entry : new TreeMap<>(this.histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            JSONObject json = entry.getKey().toJson();
+            json.put("count", histogram.getCount());
+            json.put("mean_us", histogram.getMean() / 1000);
+            for (double percentile : PERCENTILES) {
+                json.put("p" + (int) percentile + "_us", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            json.put("max_us", histogram.getMax() / 1000.0);
+            histograms.put(json);
+        }
+
+        JSONArray counters = new JSONArray();
+        for (Map.Entry<MetricKey, LongAdder> entry : new TreeMap<>(this.counters).entrySet()) {
+            JSONObject json = entry.getKey().toJson();
+            json.put("value", entry.getValue().sum());
+            counters.put(json);
+        }
+
+        JSONObject output = new JSONObject();
+        output.put("histograms", histograms);
+        output.put("counters", counters);
+        return output;
+    }
+
+    public String toPrometheus() {
+        StringBuilder output = new StringBuilder();
+        String previous = null;
+        for (Map.Entry<MetricKey, LatencyHistogram> entry : new TreeMap<>(this.histograms).entrySet()) {
+            MetricKey key = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            String name = PREFIX + key.name + "_seconds";
+            if (!name.equals(previous)) {
+                output.append("# TYPE ").append(name).append(" summary\n");
+                previous = name;
+            }
+            for (double percentile : PERCENTILES) {
+                output.append(name).append(key.toLabels("quantile", format(percentile / 100))).append(' ')
+                        .append(format(histogram.getValueAtPercentile(percentile) / 1e9)).append('\n');
+            }
+            output.append(name).append("_sum").append(key.toLabels(null, null)).append(' ')
+                    .append(format(histogram.getSum() / 1e9)).append('\n');
+            output.append(name).append("_count").append(key.toLabels(null, null)).append(' ')
+                    .append(histogram.getCount()).append('\n');
+        }
+        for (Map.Entry<MetricKey, LongAdder> entry : new TreeMap<>(this.counters).entrySet()) {
+            MetricKey key = entry.getKey();
+            String name = PREFIX + key.name + "_total";
+            if (!name.equals(previous)) {
+                output.append("# TYPE ").append(name).append(" counter\n");
+                previous = name;
+            }
+            output.append(name).append(key.toLabels(null, null)).append(' ')
+                    .append(entry.getValue().sum()).append('\n');
+        }
+        return output.toString();
+    }
+
+    /**
+     * Writes the metrics to a file, in the Prometheus text format when its name ends
+     * with .prom or .txt and as JSON otherwise
+     */
+    public void write(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        String output = fileName.endsWith(".prom") || fileName.endsWith(".txt")
+                ? toPrometheus() : toJson().toString(2);
+        Files.write(path, output.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    private static final class MetricKey implements Comparable<MetricKey> {
+        private final String name;
+        private final String label;
+        private final String value;
+
+        private MetricKey(String name, String label, String value) {
+            this.name = name;
+            this.label = label;
+            this.value = value;
+        }
+
+        private JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("name", this.name);
+            if (this.label != null) {
+                json.put(this.label, this.value);
+            }
+            return json;
+        }
+
+        private String toLabels(String extraLabel, String extraValue) {
+            StringBuilder labels = new StringBuilder();
+            if (this.label != null) {
+                labels.append(this.label).append("=\"").append(this.value).append('"');
+            }
+            if (extraLabel != null) {
+                labels.append(labels.length() > 0 ? "," : "").append(extraLabel).append("=\"").append(extraValue).append('"');
+            }
+            return labels.length() > 0 ? "{" + labels + "}" : "";
+        }
+
+        @Override
+        public int compareTo(MetricKey other) {
+            int result = this.name.compareTo(other.name);
+            if (result == 0) {
+                result = String.valueOf(this.label).compareTo(String.valueOf(other.label));
+            }
+            if (result == 0) {
+                result = String.valueOf(this.value).compareTo(String.valueOf(other.value));
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey other = (MetricKey) o;
+            return compareTo(other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.name.hashCode() * 31 + String.valueOf(this.label).hashCode()) * 31
+                    + String.valueOf(this.value).hashCode();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.selfplay;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * TicTacToeSelfPlayFormat describes the shard files written by TicTacToeSelfPlayGenerator:
+ * a header followed by one fixed-width record per position, so position N of a shard is
+ * at HEADER_SIZE + N * recordSize and shards can be memory mapped or split freely.
+ *
+ * Header layout (big endian):
+ * int     MAGIC
+ * byte    version
+ * byte    field width
+ * byte    field height
+ * byte    line length
+ * short   record size in bytes
+ * short   longs per plane
+ *
+ * Record layout (big endian):
+ * short   ply, the number of moves played before this position
+ * byte    id of the player to move
+ * byte    outcome for the player to move: 1 won, 0 draw, -1 lost
+ * short   cell (y * width + x) of the move that was played
+ * short   number of legal moves
+ * long[]  plane of the stones of the player to move
+ * long[]  plane of the stones of the other player
+ * long[]  plane of the legal moves
+ *
+ * Planes are bitsets over the cells, bit (y * width + x) of the plane is bit
+ * (cell % 64) of long (cell / 64). Bot ids are expected to be 0 and 1.
+ */
+public final class TicTacToeSelfPlayFormat {
+
+    public static final int MAGIC = 0x55545453; /* "UTTS" */
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 12;
+    public static final int PLANE_COUNT = 3;
+    public static final int WON = 1;
+    public static final int DRAW = 0;
+    public static final int LOST = -1;
+
+    static final int PLAYER_OFFSET = 2;
+    static final int OUTCOME_OFFSET = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private TicTacToeSelfPlayFormat() {}
+
+    /**
+     * @return Longs needed for a plane of a width x height board
+     */
+    public static int getPlaneLongs(int width, int height) {
+        return (width * height + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * @return Size in bytes of every record of a width x height board
+     */
+    public static int getRecordSize(int width, int height) {
+        return RECORD_HEADER_SIZE + PLANE_COUNT * getPlaneLongs(width, height) * Long.BYTES;
+    }
+
+    /**
+     * Writes the header of a shard of boards like the given one
+     */
+    public static void putHeader(ByteBuffer buffer, TicTacToeBoard board) {
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) board.getWidth());
+        buffer.put((byte) board.getHeight());
+        buffer.put((byte) board.getLineLength());
+        buffer.putShort((short) getRecordSize(board.getWidth(), board.getHeight()));
+        buffer.putShort((short) getPlaneLongs(board.getWidth(), board.getHeight()));
+    }
+
+    /**
+     * Writes the record of a position, with a draw as outcome until it is known
+     * @param planes Scratch space of at least PLANE_COUNT * getPlaneLongs() longs
+     * @param moves Scratch space of at least width * height ints
+     * @param move Cell of the move that is played in this position
+     */
+    public static void putRecord(ByteBuffer buffer, TicTacToeBoard board, int ply, int playerToMove,
+                                 int move, long[] planes, int[] moves) {
+        int width = board.getWidth();
+        int size = board.getMicroboardSize();
+        int planeLongs = getPlaneLongs(width, board.getHeight());
+        for (int i = 0; i < PLANE_COUNT * planeLongs; i++) {
+            planes[i] = 0;
+        }
+
+        for (int microboard = 0; microboard < size * size; microboard++) {
+            int originX = (microboard % size) * size;
+            int originY = (microboard / size) * size;
+            for (int p = 0; p < TicTacToeBoard.PLAYER_COUNT; p++) {
+                int plane = p == playerToMove ? 0 : planeLongs;
+                int stones = board.getMicroboardMask(p, microboard);
+                while (stones != 0) {
+                    int bit = Integer.numberOfTrailingZeros(stones);
+                    stones &= stones - 1;
+                    int cell = (originY + bit / size) * width + originX + bit % size;
+                    planes[plane + cell / Long.SIZE] |= 1L << cell;
+                }
+            }
+        }
+        int count = board.getLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            planes[2 * planeLongs + moves[i] / Long.SIZE] |= 1L << moves[i];
+        }
+
+        buffer.putShort((short) ply);
+        buffer.put((byte) playerToMove);
+        buffer.put((byte) DRAW);
+        buffer.putShort((short) move);
+        buffer.putShort((short) count);
+        for (int i = 0; i < PLANE_COUNT * planeLongs; i++) {
+            buffer.putLong(planes[i]);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.selfplay;
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * TicTacToeSelfPlayGenerator plays games between two policies and writes every position,
+ * its legal moves, the move played and the final outcome as fixed-width records, see
+ * TicTacToeSelfPlayFormat.
+ *
+ * Every thread plays its share of the games with its own bots and board, and writes them to
+ * its own shard file, so threads share nothing while they run and throughput grows with the
+ * number of cores. Games are played on the board directly, with the rules the engine applies
+ * through TicTacToeLogic: a move that is not legal loses the game, and so does having no
+ * legal move left. Moves that lose that way are not recorded. Bots that are a
+ * TicTacToeReadOnlyBot get the board of the game itself, any other bot gets a copy.
+ */
+public class TicTacToeSelfPlayGenerator {
+
+    private final LongFunction<TicTacToeBot> policy0;
+    private final LongFunction<TicTacToeBot> policy1;
+    private final int fieldWidth;
+    private final int fieldHeight;
+    private int lineLength;
+    private long seed;
+    private int bufferSize = TicTacToeShardWriter.DEFAULT_BUFFER_SIZE;
+
+    /**
+     * @param policy0 Creates the bot of player 0 of a thread from a seed, e.g. TicTacToeRandomBot::new
+     * @param policy1 Creates the bot of player 1 of a thread from a seed
+     * @param fieldWidth Width of the field of every game
+     * @param fieldHeight Height of the field of every game
+     */
+    public TicTacToeSelfPlayGenerator(LongFunction<TicTacToeBot> policy0, LongFunction<TicTacToeBot> policy1,
+                                      int fieldWidth, int fieldHeight) {
+        this.policy0 = policy0;
+        this.policy1 = policy1;
+        this.fieldWidth = fieldWidth;
+        this.fieldHeight = fieldHeight;
+    }
+
+    /**
+     * @param lineLength Stones in a row needed to win, or 0 for a full row of a microboard
+     */
+    public void setLineLength(int lineLength) {
+        this.lineLength = lineLength;
+    }
+
+    /**
+     * @param seed Seed the per thread seeds of the policies are derived from
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param bufferSize Bytes every shard collects before writing them to its file
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Plays the games on a pool with one thread per available core
+     * @see #run(Path, String, int, int)
+     */
+    public TicTacToeSelfPlayResult run(Path directory, String prefix, int games) throws IOException, InterruptedException {
+        return run(directory, prefix, games, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Plays the games and writes them to shards named prefix-00000.bin, prefix-00001.bin, ...
+     * @param directory Existing directory for the shards, existing shards are overwritten
+     * @param games Number of games over all shards
+     * @param threads Number of threads, and shards
+     */
+    public TicTacToeSelfPlayResult run(Path directory, String prefix, int games, int threads)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<Path> shards = new ArrayList<>(threads);
+        List<Future<long[]>> results = new ArrayList<>(threads);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int shard = 0; shard < threads; shard++) {
+                Path path = directory.resolve(String.format("%s-%05d.bin", prefix, shard));
+                int shardGames = games / threads + (shard < games % threads ? 1 : 0);
+                long shardSeed = this.seed + shard * 0x9E3779B97F4A7C15L;
+                shards.add(path);
+                results.add(pool.submit(() -> playShard(path, shardGames, shardSeed)));
+            }
+
+            long positions = 0;
+            long[] wins = new long[TicTacToeBoard.PLAYER_COUNT];
+            long draws = 0;
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                positions += counts[0];
+                wins[0] += counts[1];
+                wins[1] += counts[2];
+                draws += counts[3];
+            }
+            return new TicTacToeSelfPlayResult(shards, games, positions, wins, draws, System.nanoTime() - start);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException("Self-play failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Positions written, wins of player 0, wins of player 1 and draws
+     */
+    private long[] playShard(Path path, int games, long shardSeed) throws IOException {
+        TicTacToeBot[] bots = { this.policy0.apply(shardSeed), this.policy1.apply(~shardSeed) };
+        TicTacToeBoard board = createBoard();
+        int cells = board.getWidth() * board.getHeight();
+        int recordSize = TicTacToeSelfPlayFormat.getRecordSize(board.getWidth(), board.getHeight());
+        ByteBuffer game = ByteBuffer.allocate(cells * recordSize);
+        long[] planes = new long[TicTacToeSelfPlayFormat.PLANE_COUNT
+                * TicTacToeSelfPlayFormat.getPlaneLongs(board.getWidth(), board.getHeight())];
+        int[] moves = new int[cells];
+        long[] counts = new long[4];
+
+        try (TicTacToeShardWriter writer = new TicTacToeShardWriter(path, this.bufferSize)) {
+            ByteBuffer header = ByteBuffer.allocate(TicTacToeSelfPlayFormat.HEADER_SIZE);
+            TicTacToeSelfPlayFormat.putHeader(header, board);
+            header.flip();
+            writer.write(header);
+
+            for (int i = 0; i < games; i++) {
+                game.clear();
+                int winner = playGame(board, bots, game, planes, moves);
+                while (board.getUndoDepth() > 0) {
+                    board.unmakeMove(); /* Cheaper than a new board */
+                }
+
+                int positions = game.position() / recordSize;
+                for (int record = 0; record < positions; record++) {
+                    int player = game.get(record * recordSize + TicTacToeSelfPlayFormat.PLAYER_OFFSET);
+                    int outcome = winner == TicTacToeBoard.EMPTY_CELL ? TicTacToeSelfPlayFormat.DRAW
+                            : winner == player ? TicTacToeSelfPlayFormat.WON : TicTacToeSelfPlayFormat.LOST;
+                    game.put(record * recordSize + TicTacToeSelfPlayFormat.OUTCOME_OFFSET, (byte) outcome);
+                }
+                game.flip();
+                writer.write(game);
+
+                counts[0] += positions;
+                counts[winner == TicTacToeBoard.EMPTY_CELL ? 3 : 1 + winner]++;
+            }
+        } finally {
+            for (TicTacToeBot bot : bots) {
+                TicTacToeBot.close(bot); /* Bots may hold worker threads */
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Plays one game and adds a record without outcome for every position to the buffer
+     * @return The id of the winner, or EMPTY_CELL for a draw
+     */
+    private int playGame(TicTacToeBoard board, TicTacToeBot[] bots, ByteBuffer game, long[] planes, int[] moves) {
+        int width = board.getWidth();
+        int player = 0;
+        for (int ply = 0; ; ply++) {
+            int winner = board.getMacroboardWinnerId();
+            if (winner != TicTacToeBoard.EMPTY_CELL) {
+                return winner;
+            }
+            if (board.boardIsFull() || board.macroboardIsFull()) {
+                return TicTacToeBoard.EMPTY_CELL;
+            }
+
+            int move = bots[player].getMove(TicTacToeBot.boardFor(bots[player], board), player);
+            int x = move >= 0 ? move % width : -1;
+            int y = move >= 0 ? move / width : -1;
+            if (!board.isLegalMove(x, y)) {
+                return 1 - player;
+            }
+            TicTacToeSelfPlayFormat.putRecord(game, board, ply, player, move, planes, moves);
+            board.makeMove(x, y, player);
+            player = 1 - player;
+        }
+    }
+
+    private TicTacToeBoard createBoard() {
+        return this.lineLength > 0
+                ? new TicTacToeBoard(this.fieldWidth, this.fieldHeight, this.lineLength)
+                : new TicTacToeBoard(this.fieldWidth, this.fieldHeight);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.selfplay;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * TicTacToeSelfPlayResult sums up what a TicTacToeSelfPlayGenerator run produced.
+ */
+public class TicTacToeSelfPlayResult {
+
+    private final List<Path> shards;
+    private final long games;
+    private final long positions;
+    private final long[] wins;
+    private final long draws;
+    private final long nanos;
+
+    TicTacToeSelfPlayResult(List<Path> shards, long games, long positions, long[] wins, long draws, long nanos) {
+        this.shards = shards;
+        this.games = games;
+        this.positions = positions;
+        this.wins = wins;
+        this.draws = draws;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return The shard files, one per thread
+     */
+    public List<Path> getShards() {
+        return this.shards;
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * @return Records written over all shards
+     */
+    public long getPositions() {
+        return this.positions;
+    }
+
+    /**
+     * @return Games won by the player with given id
+     */
+    public long getWins(int playerId) {
+        return this.wins[playerId];
+    }
+
+    public long getDraws() {
+        return this.draws;
+    }
+
+    /**
+     * @return Positions written per second of wall clock time
+     */
+    public double getPositionsPerSecond() {
+        return this.nanos > 0 ? this.positions * 1e9 / this.nanos : 0;
+    }
+
+    public String toString() {
+        return String.format("TicTacToeSelfPlayResult %d games, %d positions in %d shards, %.0f positions/s",
+                this.games, this.positions, this.shards.size(), getPositionsPerSecond());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.selfplay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TicTacToeShardWriter writes one shard file through a direct buffer, so the channel
+ * sees a few large writes instead of one per record. Every generator thread owns its
+ * own shard, writers are not thread safe.
+ */
+public class TicTacToeShardWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesWritten;
+
+    /**
+     * Creates the file, or truncates it when it exists
+     * @param bufferSize Bytes collected before they are written to the channel
+     */
+    public TicTacToeShardWriter(Path path, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Appends the remaining bytes of given buffer
+     */
+    public void write(ByteBuffer source) throws IOException {
+        if (source.remaining() > this.buffer.remaining()) {
+            flush();
+        }
+        if (source.remaining() > this.buffer.capacity()) {
+            writeFully(source);
+        } else {
+            this.buffer.put(source);
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        writeFully(this.buffer);
+        this.buffer.clear();
+    }
+
+    /**
+     * @return Bytes passed to the channel so far, excluding what is still buffered
+     */
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            this.bytesWritten += this.channel.write(source);
+        }
+    }
+}
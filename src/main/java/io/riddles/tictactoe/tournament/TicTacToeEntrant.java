@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.tournament;
+
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+
+import java.util.function.Supplier;
+
+/**
+ * TicTacToeEntrant is a bot taking part in a tournament. Every match gets a fresh
+ * bot from the factory, so bots never share state between matches running in parallel.
+ */
+public class TicTacToeEntrant {
+
+    private final String name;
+    private final Supplier<TicTacToeBot> botFactory;
+
+    public TicTacToeEntrant(String name, Supplier<TicTacToeBot> botFactory) {
+        this.name = name;
+        this.botFactory = botFactory;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public TicTacToeBot createBot() {
+        return this.botFactory.get();
+    }
+
+    public String toString() {
+        return "TicTacToeEntrant " + this.name;
+    }
+}
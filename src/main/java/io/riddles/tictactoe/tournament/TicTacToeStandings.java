@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.tournament;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * TicTacToeStandings aggregates the results of a tournament: wins, draws and losses
+ * per entrant and an Elo rating. Ratings depend on the order of the results, so they
+ * are added in schedule order once all matches are played.
+ */
+public class TicTacToeStandings {
+
+    public static final double INITIAL_RATING = 1500;
+    private static final double K_FACTOR = 16;
+
+    private final List<TicTacToeEntrant> entrants;
+    private final int[] wins;
+    private final int[] draws;
+    private final int[] losses;
+    private final double[] ratings;
+
+    public TicTacToeStandings(List<TicTacToeEntrant> entrants) {
+        this.entrants = new ArrayList<>(entrants);
+        this.wins = new int[entrants.size()];
+        this.draws = new int[entrants.size()];
+        this.losses = new int[entrants.size()];
+        this.ratings = new double[entrants.size()];
+        for (int i = 0; i < this.ratings.length; i++) {
+            this.ratings[i] = INITIAL_RATING;
+        }
+    }
+
+    /**
+     * Adds the result of a match
+     * @param first Index of the entrant that played as bot 0
+     * @param second Index of the entrant that played as bot 1
+     * @param winner 0 or 1 for the winning bot, null for a draw
+     */
+    public void addResult(int first, int second, Integer winner) {
+        double score;
+        if (winner == null) {
+            this.draws[first]++;
+            this.draws[second]++;
+            score = 0.5;
+        } else if (winner == 0) {
+            this.wins[first]++;
+            this.losses[second]++;
+            score = 1;
+        } else {
+            this.losses[first]++;
+            this.wins[second]++;
+            score = 0;
+        }
+
+        double expected = 1 / (1 + Math.pow(10, (this.ratings[second] - this.ratings[first]) / 400));
+        this.ratings[first] += K_FACTOR * (score - expected);
+        this.ratings[second] -= K_FACTOR * (score - expected);
+    }
+
+    public int getWins(int entrant) {
+        return this.wins[entrant];
+    }
+
+    public int getDraws(int entrant) {
+        return this.draws[entrant];
+    }
+
+    public int getLosses(int entrant) {
+        return this.losses[entrant];
+    }
+
+    public double getRating(int entrant) {
+        return this.ratings[entrant];
+    }
+
+    public List<TicTacToeEntrant> getEntrants() {
+        return this.entrants;
+    }
+
+    /**
+     * Creates a table of all entrants, best rated first
+     */
+    @Override
+    public String toString() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < this.entrants.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> -this.ratings[i]));
+
+        StringBuilder r = new StringBuilder();
+        r.append(String.format("%-24s %6s %6s %6s %8s%n", "entrant", "win", "draw", "loss", "elo"));
+        for (int i : order) {
+            r.append(String.format("%-24s %6d %6d %6d %8.1f%n", this.entrants.get(i).getName(),
+                    this.wins[i], this.draws[i], this.losses[i], this.ratings[i]));
+        }
+        return r.toString();
+    }
+}
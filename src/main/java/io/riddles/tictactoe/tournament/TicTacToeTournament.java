@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.tournament;
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner;
+import io.riddles.tictactoe.game.player.TicTacToeBot;
+import io.riddles.tictactoe.game.processor.TicTacToeTimebank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * TicTacToeTournament plays a round-robin between entrants inside one JVM.
+ * Every ordered pair of entrants plays a number of matches, so both sides get to move first.
+ * Matches are independent TicTacToeMatchRunners with fresh bots, executed on a
+ * work-stealing pool; results are collected per match and added to the standings in
+ * schedule order, so the ratings do not depend on which match finished first.
+ */
+public class TicTacToeTournament {
+
+    private final List<TicTacToeEntrant> entrants;
+    private final int matchesPerPairing;
+    private final int fieldWidth;
+    private final int fieldHeight;
+    private TicTacToeTimebank timebank;
+
+    /**
+     * @param entrants The bots taking part
+     * @param matchesPerPairing Matches per ordered pair of entrants
+     * @param fieldWidth Width of the field of every match
+     * @param fieldHeight Height of the field of every match
+     */
+    public TicTacToeTournament(List<TicTacToeEntrant> entrants, int matchesPerPairing, int fieldWidth, int fieldHeight) {
+        this.entrants = new ArrayList<>(entrants);
+        this.matchesPerPairing = matchesPerPairing;
+        this.fieldWidth = fieldWidth;
+        this.fieldHeight = fieldHeight;
+    }
+
+    /**
+     * Plays every match with time controls
+     * @param timebank The time controls, or null to let bots think as long as they like
+     */
+    public void setTimebank(TicTacToeTimebank timebank) {
+        this.timebank = timebank;
+    }
+
+    /**
+     * Creates the schedule: for every ordered pair of different entrants,
+     * matchesPerPairing entries of {first, second} entrant index
+     */
+    public List<int[]> createSchedule() {
+        List<int[]> schedule = new ArrayList<>();
+        for (int round = 0; round < this.matchesPerPairing; round++) {
+            for (int first = 0; first < this.entrants.size(); first++) {
+                for (int second = 0; second < this.entrants.size(); second++) {
+                    if (first != second) {
+                        schedule.add(new int[] { first, second });
+                    }
+                }
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Plays the tournament on a pool with one thread per available core
+     */
+    public TicTacToeStandings run() throws InterruptedException {
+        return run(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Plays the tournament
+     * @param parallelism Number of matches played at the same time
+     */
+    public TicTacToeStandings run(int parallelism) throws InterruptedException {
+        List<int[]> schedule = createSchedule();
+        List<Future<Integer>> results = new ArrayList<>(schedule.size());
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int[] pairing : schedule) {
+                results.add(pool.submit(() -> playMatch(pairing[0], pairing[1])));
+            }
+
+            TicTacToeStandings standings = new TicTacToeStandings(this.entrants);
+            for (int i = 0; i < schedule.size(); i++) {
+                int[] pairing = schedule.get(i);
+                standings.addResult(pairing[0], pairing[1], results.get(i).get());
+            }
+            return standings;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Match failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return 0 when the first entrant won, 1 when the second one won, null for a draw
+     */
+    private Integer playMatch(int first, int second) {
+        List<TicTacToeBot> bots = new ArrayList<>();
+        bots.add(this.entrants.get(first).createBot());
+        bots.add(this.entrants.get(second).createBot());
+
+        try {
+            TicTacToeMatchRunner runner = new TicTacToeMatchRunner(bots, this.fieldWidth, this.fieldHeight, false);
+            runner.getProcessor().setTimebank(this.timebank);
+            runner.run();
+            return runner.getWinnerId();
+        } finally {
+            for (TicTacToeBot bot : bots) {
+                TicTacToeBot.close(bot); /* Bots may hold worker threads */
+            }
+        }
+    }
+}
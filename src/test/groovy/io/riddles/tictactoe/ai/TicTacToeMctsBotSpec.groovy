@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner
+import io.riddles.tictactoe.game.data.Coordinate
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.move.ActionType
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import io.riddles.tictactoe.game.player.TicTacToeBotPlayer
+import spock.lang.Specification
+
+/**
+ * Tests for the Monte Carlo Tree Search reference bot.
+ */
+class TicTacToeMctsBotSpec extends Specification {
+
+    def "bot player plays the winning move from the updates it was sent"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        [[0, 0], [1, 0], [2, 0], [3, 0], [4, 0], [5, 0], [6, 0], [7, 0]].each { board.setCell(it[0], it[1], 0) }
+        [[0, 3], [1, 4], [3, 3], [4, 4], [3, 7], [5, 6], [2, 3]].each { board.setCell(it[0], it[1], 1) }
+        TicTacToeMctsBot bot = new TicTacToeMctsBot(50, 2)
+        TicTacToeBotPlayer player = new TicTacToeBotPlayer(0, bot, 9, 9)
+        player.sendUpdate("field", board.toString())
+        player.sendUpdate("macroboard", board.macroboardToString(Coordinate.of(2, 3)))
+
+        expect:
+        player.requestMove(ActionType.MOVE) == "place_move 8 0"
+        bot.getPlayouts() > 0
+
+        cleanup:
+        bot.shutdown()
+    }
+
+    def "bot beats a random bot"() {
+
+        setup:
+        Random random = new Random(7)
+        TicTacToeBot randomBot = { TicTacToeBoard b, int botId ->
+            int[] moves = new int[81]
+            return moves[random.nextInt(b.getLegalMoves(moves))]
+        } as TicTacToeBot
+        TicTacToeMctsBot bot = new TicTacToeMctsBot(20, 2)
+        int wins = 0
+        for (int game = 0; game < 4; game++) {
+            boolean mctsFirst = game % 2 == 0
+            TicTacToeMatchRunner runner = mctsFirst
+                    ? new TicTacToeMatchRunner(bot, randomBot)
+                    : new TicTacToeMatchRunner(randomBot, bot)
+            runner.run()
+            if (runner.getWinnerId() == (mctsFirst ? 0 : 1)) {
+                wins++
+            }
+        }
+
+        expect:
+        wins >= 3
+
+        cleanup:
+        bot.shutdown()
+    }
+
+    def "bots with a playout budget play the same moves for the same seed and leave the board as it was"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        board.makeMove(4, 4, 0)
+        board.makeMove(3, 3, 1)
+        String before = board.toString() + (0..<81).findAll { board.isLegalMove(it % 9, it.intdiv(9)) } + board.getUndoDepth()
+        List<Integer> first = (0..<3).collect { TicTacToeMctsBot.withPlayouts(300, 11).getMove(board, 0) }
+        List<Integer> seeds = (0..<8).collect { TicTacToeMctsBot.withPlayouts(300, it).getMove(board, 0) }
+
+        expect:
+        first.unique().size() == 1
+        board.isLegalMove(first[0] % 9, first[0].intdiv(9))
+        seeds.every { board.isLegalMove(it % 9, it.intdiv(9)) }
+        board.toString() + (0..<81).findAll { board.isLegalMove(it % 9, it.intdiv(9)) } + board.getUndoDepth() == before
+        TicTacToeMctsBot.withPlayouts(300, 11).getPlayoutsPerMove() == 300
+    }
+
+    def "playout budgets must allow at least one playout"() {
+
+        when:
+        TicTacToeMctsBot.withPlayouts(0, 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
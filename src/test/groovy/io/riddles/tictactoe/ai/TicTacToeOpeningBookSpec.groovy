@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Tests for building and reading opening books.
+ */
+class TicTacToeOpeningBookSpec extends Specification {
+
+    def "books built from replays match books built from played games"() {
+
+        setup:
+        Random random = new Random(3)
+        TicTacToeBot randomBot = { TicTacToeBoard board, int botId ->
+            int[] moves = new int[81]
+            return moves[random.nextInt(board.getLegalMoves(moves))]
+        } as TicTacToeBot
+        TicTacToeOpeningBookBuilder fromReplays = new TicTacToeOpeningBookBuilder(6)
+        TicTacToeOpeningBookBuilder fromGames = new TicTacToeOpeningBookBuilder(6)
+        30.times {
+            TicTacToeMatchRunner runner = new TicTacToeMatchRunner([randomBot, randomBot], 9, 9, true)
+            runner.run()
+            StringWriter replay = new StringWriter()
+            runner.writePlayedGame(replay)
+            fromReplays.addReplay(new StringReader(replay.toString()))
+            fromGames.addGame(runner.getFinalState())
+        }
+        Path replayBook = Files.createTempFile("book", ".utob")
+        Path gameBook = Files.createTempFile("book", ".utob")
+        fromReplays.write(replayBook, 1)
+        fromGames.write(gameBook, 1)
+        TicTacToeOpeningBook book = new TicTacToeOpeningBook(replayBook)
+
+        int[] moves = new int[81]
+        int[] stats = new int[243]
+        TicTacToeBoard empty = new TicTacToeBoard(9, 9)
+        int count = book.getMoves(empty, 0, moves, stats)
+        int best = book.getBestMove(empty, 0, 1)
+
+        expect:
+        fromReplays.getGameCount() == 30
+        Files.readAllBytes(replayBook) == Files.readAllBytes(gameBook)
+        count > 0
+        stats.sum() == 30
+        (0..<count).every { empty.isLegalMove(moves[it] % 9, moves[it].intdiv(9)) }
+        new TicTacToeBookBot(book, randomBot, 1).getMove(empty, 0) == best
+        book.getBestMove(empty, 0, 31) == -1
+
+        cleanup:
+        Files.deleteIfExists(replayBook)
+        Files.deleteIfExists(gameBook)
+    }
+
+    def "book bots leave boards the book does not cover to the fallback"() {
+
+        setup:
+        Path path = Files.createTempFile("book", ".utob")
+        new TicTacToeOpeningBookBuilder(6).write(path, 1)
+        TicTacToeBot fallback = { TicTacToeBoard board, int botId -> 7 } as TicTacToeBot
+        TicTacToeBookBot bot = new TicTacToeBookBot(new TicTacToeOpeningBook(path), fallback, 1)
+
+        expect:
+        bot.getMove(new TicTacToeBoard(4, 4), 0) == 7
+        bot.getMove(new TicTacToeBoard(16, 16), 0) == 7
+        bot.getMove(new TicTacToeBoard(9, 9), 0) == 7
+
+        cleanup:
+        Files.deleteIfExists(path)
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai
+
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+/**
+ * Tests for the alpha-beta analysis engine.
+ */
+class TicTacToeSearchSpec extends Specification {
+
+    def "search finds a win in one"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        [[0, 0], [1, 0], [2, 0], [3, 0], [4, 0], [5, 0], [6, 0], [7, 0]].each { board.setCell(it[0], it[1], 0) }
+        [[0, 3], [1, 4], [3, 3], [4, 4], [3, 7], [5, 6], [2, 3]].each { board.setCell(it[0], it[1], 1) }
+        board.updateMacroboard(2, 3)
+        TicTacToeSearchResult result = new TicTacToeSearch().search(board, 0, 6, 0)
+
+        expect:
+        result.getBestMove() == 8
+        result.getScore() == TicTacToeSearch.WIN - 1
+        result.isDecisive()
+        board.getCell(8, 0) == TicTacToeBoard.EMPTY_CELL
+    }
+
+    def "principal variation from a game state is a line of legal moves"() {
+
+        setup:
+        TicTacToeState state = new TicTacToeTestGame(new TicTacToeBoard(9, 9), false)
+                .play(["place_move 4 4", "place_move 3 3"])
+
+        TicTacToeSearchResult result = new TicTacToeSearch().search(state, 5, 0)
+        TicTacToeBoard board = new TicTacToeBoard(state.getBoard())
+        int player = TicTacToeSearch.getPlayerToMove(state)
+        boolean legal = true
+        for (int move : result.getPrincipalVariation()) {
+            legal &= board.isLegalMove(move % 9, move.intdiv(9))
+            board.makeMove(move % 9, move.intdiv(9), player)
+            player = 1 - player
+        }
+
+        expect:
+        TicTacToeSearch.getPlayerToMove(state) == 0
+        result.getDepth() == 5
+        result.getPrincipalVariation().length == 5
+        legal
+    }
+
+    def "transposition table entries survive a round trip"() {
+
+        setup:
+        TicTacToeTranspositionTable table = new TicTacToeTranspositionTable(4)
+        table.store(0x1234L, -29990, 7, TicTacToeTranspositionTable.LOWER_BOUND, 80)
+        long entry = table.probe(0x1234L)
+
+        expect:
+        TicTacToeTranspositionTable.getScore(entry) == -29990
+        TicTacToeTranspositionTable.getDepth(entry) == 7
+        TicTacToeTranspositionTable.getBound(entry) == TicTacToeTranspositionTable.LOWER_BOUND
+        TicTacToeTranspositionTable.getBestMove(entry) == 80
+        table.probe(0x1235L) == 0
+        table.probe(0x1234L + (1L << 40)) == 0
+    }
+
+    def "a search without a principal variation still plays a legal move"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        board.makeMove(4, 4, 0) /* Sends the next move to the center microboard */
+        TicTacToeSearch search = new TicTacToeSearch() {
+            @Override
+            TicTacToeSearchResult search(TicTacToeBoard b, int playerToMove, int maxDepth, int timeLimit) {
+                return new TicTacToeSearchResult(0, 1, new int[0], 0) /* As when depth 1 is cut short */
+            }
+        }
+        int move = search.getMove(board, 1)
+
+        expect:
+        move == 30
+        board.isLegalMove(move % 9, move.intdiv(9))
+    }
+
+    def "search depth must be at least one move"() {
+
+        when:
+        new TicTacToeSearch().search(new TicTacToeBoard(9, 9), 0, 0, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "wins take as many plies as the largest board has cells"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(16, 16)
+        TicTacToeSearchResult result = new TicTacToeSearch(new TicTacToeTranspositionTable(10)).search(board, 0, 2, 0)
+        int cells = 25 * 25
+
+        expect:
+        board.isLegalMove(result.getBestMove() % 16, result.getBestMove().intdiv(16))
+        new TicTacToeSearchResult(TicTacToeSearch.WIN - cells, cells, new int[0], 0).isDecisive()
+        !new TicTacToeSearchResult(TicTacToeSearch.WIN - TicTacToeSearch.MAX_PLY, 1, new int[0], 0).isDecisive()
+    }
+}
+
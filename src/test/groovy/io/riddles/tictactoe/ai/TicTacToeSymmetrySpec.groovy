@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import spock.lang.Specification
+
+/**
+ * Tests for symmetry canonical keys and the evaluation cache.
+ */
+class TicTacToeSymmetrySpec extends Specification {
+
+    def "symmetric images of a game have the same canonical key"() {
+
+        setup:
+        Random random = new Random(seed)
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        List<TicTacToeBoard> images = (0..<TicTacToeSymmetry.COUNT).collect { new TicTacToeBoard(9, 9) }
+        int[] moves = new int[81]
+        boolean consistent = true
+        int player = 0
+        while (board.getMacroboardWinner() == null && board.getLegalMoveCount() > 0) {
+            int move = moves[random.nextInt(board.getLegalMoves(moves))]
+            board.makeMove(move % 9, move.intdiv(9), player)
+            images.eachWithIndex { TicTacToeBoard image, int s ->
+                int mapped = TicTacToeSymmetry.transformCell(s, move)
+                consistent &= image.isLegalMove(mapped % 9, mapped.intdiv(9))
+                image.makeMove(mapped % 9, mapped.intdiv(9), player)
+            }
+            player = 1 - player
+            long canonical = TicTacToeSymmetry.canonicalKey(board, player)
+            images.eachWithIndex { TicTacToeBoard image, int s ->
+                consistent &= TicTacToeSymmetry.canonicalKey(image, player) == canonical
+                consistent &= TicTacToeSymmetry.key(image, player, TicTacToeSymmetry.IDENTITY) ==
+                        TicTacToeSymmetry.key(board, player, s)
+            }
+            consistent &= TicTacToeSymmetry.canonicalKey(board, 1 - player) != canonical
+        }
+
+        expect:
+        consistent
+
+        where:
+        seed << [1L, 2L, 3L]
+    }
+
+    def "every symmetry is undone by its inverse"() {
+
+        expect:
+        (0..<TicTacToeSymmetry.COUNT).every { int s ->
+            (0..80).every { int cell ->
+                TicTacToeSymmetry.transformCell(TicTacToeSymmetry.inverse(s), TicTacToeSymmetry.transformCell(s, cell)) == cell
+            } && (0..80).collect { int cell -> TicTacToeSymmetry.transformCell(s, cell) }.toSet().size() == 81
+        }
+    }
+
+    def "cache evicts the least recently used entries"() {
+
+        setup:
+        TicTacToeEvaluationCache<Integer> cache = new TicTacToeEvaluationCache<>(2, 1)
+        cache.put(1L, 10)
+        cache.put(2L, 20)
+        cache.get(1L)
+        cache.put(3L, 30)
+
+        expect:
+        cache.size() == 2
+        cache.get(1L) == 10
+        cache.get(2L) == null
+        cache.get(3L) == 30
+    }
+}
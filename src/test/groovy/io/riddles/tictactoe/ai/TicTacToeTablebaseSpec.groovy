@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.ai
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import io.riddles.tictactoe.game.processor.AdjudicationReason
+import io.riddles.tictactoe.game.processor.TicTacToeAdjudicator
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Tests for generating and reading endgame tablebases.
+ */
+class TicTacToeTablebaseSpec extends Specification {
+
+    TicTacToeBot randomBot(Random random) {
+        return { TicTacToeBoard board, int botId ->
+            int[] moves = new int[81]
+            return moves[random.nextInt(board.getLegalMoves(moves))]
+        } as TicTacToeBot
+    }
+
+    def "tablebase results agree with an exhaustive search"() {
+
+        setup:
+        Random random = new Random(11)
+        TicTacToeTablebaseGenerator generator = new TicTacToeTablebaseGenerator(9, 9, 10)
+        List<TicTacToeState> games = (0..<20).collect {
+            TicTacToeMatchRunner runner = new TicTacToeMatchRunner(randomBot(random), randomBot(random))
+            runner.run()
+            generator.addGame(runner.getInitialState())
+            return runner.getInitialState()
+        }
+        Path file = Files.createTempFile("tablebase", ".uttb")
+        generator.write(file)
+        TicTacToeTablebase tablebase = new TicTacToeTablebase(file)
+
+        int checked = 0
+        boolean consistent = true
+        games.each { TicTacToeState state ->
+            while (state.hasNextState()) {
+                state = (TicTacToeState) state.getNextState()
+                int player = TicTacToeSearch.getPlayerToMove(state)
+                int value = tablebase.probe(state.getBoard(), player)
+                if (value != TicTacToeTablebase.NOT_FOUND && state.getBoard().getMacroboardWinner() == null) {
+                    TicTacToeSearchResult result = new TicTacToeSearch().search(state.getBoard(), player, 10, 0)
+                    int outcome = result.getScore() > TicTacToeSearch.WIN - TicTacToeSearch.MAX_PLY ? TicTacToeTablebase.WIN
+                            : result.getScore() < -(TicTacToeSearch.WIN - TicTacToeSearch.MAX_PLY) ? TicTacToeTablebase.LOSS
+                            : TicTacToeTablebase.DRAW
+                    consistent &= TicTacToeTablebase.getOutcome(value) == outcome
+                    checked++
+                }
+            }
+        }
+
+        expect:
+        tablebase.getEntryCount() == generator.getPositionCount()
+        tablebase.getEntryCount() > 0
+        checked > 0
+        consistent
+        tablebase.probe(0x1234L) == TicTacToeTablebase.NOT_FOUND
+
+        cleanup:
+        Files.deleteIfExists(file)
+    }
+
+    def "processor ends games once the tablebase knows the result"() {
+
+        setup:
+        TicTacToeMatchRunner played = new TicTacToeMatchRunner(randomBot(new Random(5)), randomBot(new Random(6)))
+        played.run()
+        TicTacToeTablebaseGenerator generator = new TicTacToeTablebaseGenerator(9, 9, 10)
+        generator.addGame(played.getInitialState())
+        Path file = Files.createTempFile("tablebase", ".uttb")
+        generator.write(file)
+        TicTacToeTablebase tablebase = new TicTacToeTablebase(file)
+
+        TicTacToeMatchRunner adjudicated = new TicTacToeMatchRunner(randomBot(new Random(5)), randomBot(new Random(6)))
+        adjudicated.getProcessor().setAdjudicator(new TicTacToeAdjudicator(false, tablebase))
+        TicTacToeState finalState = adjudicated.run()
+        Integer expected = tablebase.getWinner(finalState.getBoard(), 1 - finalState.getPlayerId())
+
+        expect:
+        generator.getPositionCount() > 0
+        finalState.getMoveNumber() < played.getFinalState().getMoveNumber()
+        expected != null
+        finalState.getAdjudication() == AdjudicationReason.TABLEBASE
+        adjudicated.getWinnerId() == (expected == TicTacToeBoard.EMPTY_CELL ? null : expected)
+
+        cleanup:
+        Files.deleteIfExists(file)
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.engine
+
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+/**
+ * Tests for playing matches in-process.
+ */
+class TicTacToeMatchRunnerSpec extends Specification {
+
+    TicTacToeBot scripted(List<Integer> cells) {
+        Iterator<Integer> moves = cells.iterator()
+        return { TicTacToeBoard board, int botId -> moves.next() } as TicTacToeBot
+    }
+
+    def "matches play out like games driven through text responses"() {
+
+        setup:
+        List<Integer> played = []
+        TicTacToeBot firstLegal = { TicTacToeBoard board, int botId ->
+            int cell = (0..80).find { int c -> board.isInActiveMicroboard(c % 9, c.intdiv(9)) &&
+                    board.getCell(c % 9, c.intdiv(9)) == TicTacToeBoard.EMPTY_CELL }
+            played.add(cell)
+            return cell
+        } as TicTacToeBot
+        TicTacToeMatchRunner runner = new TicTacToeMatchRunner(firstLegal, firstLegal)
+        TicTacToeState finalState = runner.run()
+
+        TicTacToeTestGame game = new TicTacToeTestGame()
+        played.each { game.place(it) }
+        TicTacToeState state = game.state
+
+        expect:
+        finalState.getMoveNumber() == played.size()
+        finalState.getBoard().toString() == state.getBoard().toString()
+        runner.getWinnerId() == game.processor.getWinnerId(state)
+    }
+
+    def "an illegal move loses the match"() {
+
+        setup:
+        TicTacToeMatchRunner runner = new TicTacToeMatchRunner(scripted([40, 0]), scripted([81]))
+        TicTacToeState finalState = runner.run()
+
+        expect:
+        finalState.getMoveNumber() == 2
+        finalState.getPlayerStateById(1).getMove().getException().getMessage() == "Move out of bounds"
+        runner.getWinnerId() == 0
+    }
+
+    def "played matches serialize like engine games"() {
+
+        setup:
+        TicTacToeMatchRunner runner = new TicTacToeMatchRunner(
+                [scripted([40, 30]), scripted([30, 0])], 9, 9, true)
+        runner.run()
+        StringWriter writer = new StringWriter()
+        runner.writePlayedGame(writer)
+
+        expect:
+        writer.toString().contains('"states":[{')
+        runner.getWinnerId() == 1
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game
+
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor
+import io.riddles.tictactoe.game.state.TicTacToeState
+import io.riddles.tictactoe.game.state.TicTacToeStateSerializer
+import org.json.JSONArray
+import org.json.JSONObject
+import spock.lang.Specification
+
+/**
+ * Tests for streaming played games as JSON.
+ */
+class TicTacToeSerializerSpec extends Specification {
+
+    def "streamed games equal the fully built JSON"() {
+
+        setup:
+        TicTacToeTestGame game = new TicTacToeTestGame()
+        TicTacToeProcessor processor = game.processor
+        TicTacToeState initialState = game.initialState
+
+        Random random = new Random(moves)
+        while (game.moves < moves && !game.hasEnded()) {
+            TicTacToeBoard board = game.state.getBoard()
+            List<Integer> cells = (0..<81).findAll {
+                board.getCell(it % 9, it.intdiv(9)) == TicTacToeBoard.EMPTY_CELL && board.isInActiveMicroboard(it % 9, it.intdiv(9))
+            }
+            game.place(cells[random.nextInt(cells.size())])
+        }
+        TicTacToeState state = game.state
+
+        TicTacToeSerializer serializer = new TicTacToeSerializer()
+        StringWriter writer = new StringWriter()
+        serializer.traverseToWriter(processor, initialState, writer)
+
+        expect:
+        writer.toString() == fullyBuilt(serializer, processor, initialState)
+        serializer.traverseToString(processor, initialState) == writer.toString()
+        new JSONObject(writer.toString()).getJSONArray("states").length() == Math.max(2, 2 * state.getMoveNumber() + 1)
+
+        where:
+        moves << [0, 1, 200] /* The initial state only, a single move, and a whole game */
+    }
+
+    /**
+     * Builds the game as one JSON tree, the way traverseToString did before it streamed
+     */
+    private static String fullyBuilt(TicTacToeSerializer serializer, TicTacToeProcessor processor,
+                                     TicTacToeState initialState) {
+        JSONObject game = serializer.addDefaultJSON(initialState, new JSONObject(), processor)
+
+        JSONArray states = new JSONArray()
+        TicTacToeState state = initialState
+        TicTacToeStateSerializer stateSerializer = new TicTacToeStateSerializer()
+        states.put(stateSerializer.traverseToJson(state, false))
+        states.put(stateSerializer.traverseToJson(state, true))
+        while (state.hasNextState()) {
+            state = (TicTacToeState) state.getNextState()
+            states.put(stateSerializer.traverseToJson(state, false))
+            if (state.hasNextState()) {
+                states.put(stateSerializer.traverseToJson(state, true))
+            }
+        }
+        game.put("states", states)
+
+        return game.toString()
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game
+
+import io.riddles.javainterface.game.player.PlayerProvider
+import io.riddles.javainterface.io.PlayerResponse
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.move.TicTacToeMove
+import io.riddles.tictactoe.game.player.TicTacToePlayer
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor
+import io.riddles.tictactoe.game.state.TicTacToePlayerState
+import io.riddles.tictactoe.game.state.TicTacToeState
+
+/**
+ * A game between players 0 and 1 driven through a TicTacToeProcessor, as specs play them.
+ * Players take turns starting with player 0, and the initial state renders like the one
+ * TicTacToeEngine creates.
+ */
+class TicTacToeTestGame {
+
+    final PlayerProvider<TicTacToePlayer> playerProvider = new PlayerProvider<>()
+    final TicTacToeProcessor processor
+    final TicTacToeState initialState
+    TicTacToeState state
+    int moves
+
+    TicTacToeTestGame() {
+        this(new TicTacToeBoard(9, 9), true)
+    }
+
+    TicTacToeTestGame(TicTacToeBoard board, boolean presentation) {
+        this(board, presentation, [new TicTacToePlayer(0), new TicTacToePlayer(1)])
+    }
+
+    /**
+     * @param presentation False for a processor that skips the presentation strings
+     * @param players Players 0 and 1, e.g. ones that play through a TicTacToeBot
+     */
+    TicTacToeTestGame(TicTacToeBoard board, boolean presentation, List<? extends TicTacToePlayer> players) {
+        players.each { this.playerProvider.add(it) }
+        this.processor = new TicTacToeProcessor(this.playerProvider, presentation)
+        this.initialState = new TicTacToeState(board,
+                players.collect { new TicTacToePlayerState(it.getId()) } as ArrayList<TicTacToePlayerState>)
+        if (presentation) {
+            this.initialState.setPresentation(1) /* Player 0 moves first, so render as if player 1 just moved */
+        }
+        this.state = this.initialState
+    }
+
+    int getPlayerToMove() {
+        return this.moves % 2
+    }
+
+    TicTacToePlayer getPlayer(int id) {
+        return this.playerProvider.getPlayers().find { it.getId() == id }
+    }
+
+    boolean hasEnded() {
+        return this.processor.hasGameEnded(this.state)
+    }
+
+    /**
+     * Plays a response of the player to move, such as "place_move 4 4"
+     * @return The new state
+     */
+    TicTacToeState respond(String response) {
+        return next(this.processor.createNextStateFromResponse(this.state,
+                new PlayerResponse(response, getPlayerToMove()), round()))
+    }
+
+    TicTacToeState play(List<String> responses) {
+        responses.each { respond(it) }
+        return this.state
+    }
+
+    /**
+     * Places a stone of the player to move on given cell (y * width + x)
+     */
+    TicTacToeState place(int cell) {
+        int width = this.state.getBoard().getWidth()
+        return respond("place_move " + (cell % width) + " " + cell.intdiv(width))
+    }
+
+    /**
+     * Plays a move of the player to move that took given time to respond
+     * @param responseTime Milliseconds, or -1 when not measured
+     */
+    TicTacToeState move(TicTacToeMove move, long responseTime = -1) {
+        return next(this.processor.createNextStateFromMove(this.state, getPlayerToMove(), move, round(), responseTime))
+    }
+
+    private int round() {
+        return this.moves.intdiv(2) + 1
+    }
+
+    private TicTacToeState next(TicTacToeState state) {
+        this.state = state
+        this.moves++
+        return state
+    }
+}
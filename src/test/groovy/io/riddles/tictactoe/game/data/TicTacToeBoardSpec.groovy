@@ -0,0 +1,401 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.data
+
+import io.riddles.tictactoe.game.move.TicTacToeMove
+import io.riddles.tictactoe.game.processor.TicTacToeLogic
+import io.riddles.tictactoe.game.state.TicTacToePlayerState
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+import java.awt.Point
+
+/**
+ * Tests for the bitboard representation of TicTacToeBoard.
+ */
+class TicTacToeBoardSpec extends Specification {
+
+    def "int and String API share the same cells"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        board.setCell(4, 3, 1)
+        board.setFieldAt(Coordinate.of(8, 8), "0")
+
+        expect:
+        board.getFieldAt(Coordinate.of(4, 3)) == "1"
+        board.getCell(8, 8) == 0
+        board.getCell(0, 0) == TicTacToeBoard.EMPTY_CELL
+        board.toString() == "" +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,1,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,.," +
+                ".,.,.,.,.,.,.,.,0"
+    }
+
+    def "Point based methods still work through the adapter"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        PointAdapter.setFieldAt(board, new Point(2, 5), "1")
+        board.setCell(6, 0, 0)
+        board.setCell(7, 1, 0)
+        board.setCell(8, 2, 0)
+
+        expect:
+        board.getCell(2, 5) == 1
+        PointAdapter.getFieldAt(board, new Point(2, 5)) == "1"
+        PointAdapter.macroboardToString(board, new Point(8, 2)) == board.macroboardToString(Coordinate.of(8, 2))
+        PointAdapter.getMacroboardFieldAt(board, new Point(2, 0)) == "0"
+        PointAdapter.getCoordinate(PointAdapter.createMove(new Point(3, 4))) == new Point(3, 4)
+    }
+
+    def "microboard wins are reflected on the macroboard"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        board.setCell(6, 0, 1)
+        board.setCell(7, 1, 1)
+        board.setCell(8, 2, 1)
+        board.updateMacroboard(8, 2)
+
+        expect:
+        board.getMacroboardCell(2, 0) == 1
+        board.macroboardToString(Coordinate.of(8, 2)) == ".,.,1,.,.,.,.,.,-1"
+        board.getMacroboardWinner() == null
+    }
+
+    def "three won microboards in a row win the game"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        for (int macro = 0; macro < 3; macro++) {
+            for (int i = 0; i < 3; i++) {
+                board.setCell(macro * 3 + i, 3 + i, 0)
+            }
+        }
+        board.updateMacroboard(null)
+
+        expect:
+        board.macroboardToString(null) == "-1,-1,-1,0,0,0,-1,-1,-1"
+        board.getMacroboardWinner() == 0
+        board.getMacroboardWinnerId() == 0
+    }
+
+    def "incremental macroboard matches a full rescan of the cells"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        Random random = new Random(seed)
+        boolean consistent = true
+
+        /* A full microboard without a winner, and a microboard won by player 1 */
+        [[0, 1, 0], [0, 1, 1], [1, 0, 0]].eachWithIndex { List<Integer> row, int y ->
+            row.eachWithIndex { int owner, int x -> board.setCell(x, y, owner) }
+        }
+        (0..2).each { board.setCell(3 + it, 3 + it, 1) }
+        board.updateMacroboard(4, 4)
+        consistent &= matchesRescan(board, 4, 4)
+        consistent &= board.getMacroboardMask(1) == 1 << 4
+        consistent &= board.getClosedMicroboards() == (1 << 0 | 1 << 4)
+
+        200.times {
+            int x = random.nextInt(9)
+            int y = random.nextInt(9)
+            board.setCell(x, y, random.nextInt(3) - 1) /* Clearing cells has to reopen microboards */
+            board.updateMacroboard(x, y)
+            consistent &= matchesRescan(board, x, y)
+        }
+
+        expect:
+        consistent
+
+        where:
+        seed << [1L, 2L, 3L]
+    }
+
+    def "copies do not see changes of each other"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        board.setCell(0, 0, 0)
+        TicTacToeBoard copy = new TicTacToeBoard(board)
+        copy.setCell(1, 1, 1)
+        board.setCell(2, 2, 0)
+
+        expect:
+        copy.getCell(0, 0) == 0
+        copy.getCell(1, 1) == 1
+        copy.getCell(2, 2) == TicTacToeBoard.EMPTY_CELL
+        board.getCell(1, 1) == TicTacToeBoard.EMPTY_CELL
+        board.getCell(2, 2) == 0
+    }
+
+    def "unmaking a move does not take it back on copies"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        board.makeMove(4, 4, 0)
+        TicTacToeBoard copy = new TicTacToeBoard(board)
+        board.unmakeMove()
+
+        expect:
+        board.getCell(4, 4) == TicTacToeBoard.EMPTY_CELL
+        copy.getCell(4, 4) == 0
+        copy.getEmptyCellCount() == 80
+        copy.getActiveMicroboard() == 4
+    }
+
+    def "coordinates of every cell of the largest board are shared"() {
+
+        expect:
+        Coordinate.of(0, 0).is(Coordinate.of(0, 0))
+        Coordinate.of(24, 24).is(Coordinate.of(24, 24))
+        !Coordinate.of(25, 0).is(Coordinate.of(25, 0))
+    }
+
+    def "legal moves match the cells the move rules accept"() {
+
+        setup:
+        Random random = new Random(seed)
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        int[] moves = new int[81]
+        boolean consistent = true
+        int player = 0
+        while (board.getMacroboardWinner() == null) {
+            int count = board.getLegalMoves(moves)
+            List<Integer> expected = (0..80).findAll { int c ->
+                board.isInActiveMicroboard(c % 9, c.intdiv(9)) &&
+                        board.getCell(c % 9, c.intdiv(9)) == TicTacToeBoard.EMPTY_CELL
+            }
+            consistent &= (moves[0..<count] as List).sort() == expected
+            consistent &= count == board.getLegalMoveCount()
+            consistent &= (0..80).every { int c -> board.isLegalMove(c % 9, c.intdiv(9)) == expected.contains(c) }
+            if (count == 0) {
+                break
+            }
+            int cell = moves[random.nextInt(count)]
+            board.setCell(cell % 9, cell.intdiv(9), player)
+            board.updateMacroboard(cell % 9, cell.intdiv(9))
+            player = 1 - player
+        }
+
+        expect:
+        consistent
+        !board.isLegalMove(-1, 0)
+        !board.isLegalMove(9, 0)
+
+        where:
+        seed << [1L, 2L, 3L]
+    }
+
+    def "make and unmake follow the move rules of TicTacToeLogic"() {
+
+        setup:
+        Random random = new Random(seed)
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        TicTacToeState state = new TicTacToeState(new TicTacToeBoard(9, 9),
+                [new TicTacToePlayerState(0), new TicTacToePlayerState(1)] as ArrayList)
+        TicTacToeLogic logic = new TicTacToeLogic()
+        List<String> history = [board.toPresentationString(0, true)]
+        int[] moves = new int[81]
+        boolean consistent = true
+        int player = 0
+        while (board.getMacroboardWinner() == null && board.getLegalMoveCount() > 0) {
+            int count = board.getLegalMoves(moves)
+            int cell = moves[random.nextInt(count)]
+            int captured = board.makeMove(cell % 9, cell.intdiv(9), player)
+
+            TicTacToePlayerState playerState = new TicTacToePlayerState(player)
+            playerState.setMove(new TicTacToeMove(Coordinate.of(cell % 9, cell.intdiv(9))))
+            int wonBefore = state.getBoard().getMacroboardCell((cell % 9).intdiv(3), cell.intdiv(27))
+            logic.transform(state, playerState)
+            int wonAfter = state.getBoard().getMacroboardCell((cell % 9).intdiv(3), cell.intdiv(27))
+
+            consistent &= playerState.getMove().getException() == null
+            consistent &= board.toPresentationString(0, true) == state.getBoard().toPresentationString(0, true)
+            consistent &= (captured != TicTacToeBoard.EMPTY_CELL) == (wonBefore != wonAfter)
+            history.add(board.toPresentationString(0, true))
+            player = 1 - player
+        }
+        int played = board.getUndoDepth()
+        while (board.getUndoDepth() > 0) {
+            board.unmakeMove()
+            consistent &= board.toPresentationString(0, true) == history[board.getUndoDepth()]
+        }
+
+        expect:
+        consistent
+        played == history.size() - 1
+        board.toString() == new TicTacToeBoard(9, 9).toString()
+        board.getLegalMoveCount() == 81
+
+        where:
+        seed << [1L, 2L, 3L, 4L]
+    }
+
+    def "geometry finds the same wins as checking every row"() {
+
+        setup:
+        TicTacToeGeometry geometry = TicTacToeGeometry.of(size, lineLength)
+        Random random = new Random(size * 10 + lineLength)
+        boolean consistent = true
+        1000.times {
+            int mask = random.nextInt(geometry.getFullMask() + 1)
+            int bit = random.nextInt(geometry.getCellCount())
+            consistent &= geometry.wins(mask) == hasRow(mask, size, lineLength)
+            if (!hasRow(mask & ~(1 << bit), size, lineLength)) { /* Only lines through the bit are checked */
+                consistent &= geometry.wins(mask | 1 << bit, bit) == hasRow(mask | 1 << bit, size, lineLength)
+            }
+        }
+
+        expect:
+        consistent
+        geometry.getLines().length == [[1, 0], [0, 1], [1, 1], [1, -1]].sum { List<Integer> d ->
+            (size - Math.abs(d[0]) * (lineLength - 1)) * (size - Math.abs(d[1]) * (lineLength - 1))
+        }
+
+        where:
+        size | lineLength
+        3    | 3
+        3    | 2
+        4    | 3
+        4    | 4
+        5    | 4
+    }
+
+    def "larger boards play like the 9x9 board"() {
+
+        setup:
+        TicTacToeBoard board = new TicTacToeBoard(width, width, lineLength)
+        TicTacToeState state = new TicTacToeState(new TicTacToeBoard(width, width, lineLength),
+                [new TicTacToePlayerState(0), new TicTacToePlayerState(1)] as ArrayList)
+        TicTacToeLogic logic = new TicTacToeLogic()
+        Random random = new Random(width)
+        int size = board.getMicroboardSize()
+        int[] moves = new int[width * width]
+        boolean consistent = true
+        int player = 0
+        while (board.getMacroboardWinner() == null && board.getLegalMoveCount() > 0) {
+            int count = board.getLegalMoves(moves)
+            consistent &= count == (0..<width * width).count { board.isLegalMove(it % width, it.intdiv(width)) }
+            int cell = moves[random.nextInt(count)]
+            int x = cell % width
+            int y = cell.intdiv(width)
+            int captured = board.makeMove(x, y, player)
+
+            TicTacToePlayerState playerState = new TicTacToePlayerState(player)
+            playerState.setMove(new TicTacToeMove(Coordinate.of(x, y)))
+            logic.transform(state, playerState)
+
+            int microboard = y.intdiv(size) * size + x.intdiv(size)
+            consistent &= playerState.getMove().getException() == null
+            consistent &= board.toPresentationString(0, true) == state.getBoard().toPresentationString(0, true)
+            consistent &= (captured != TicTacToeBoard.EMPTY_CELL) ==
+                    hasRow(board.getMicroboardMask(player, microboard), size, lineLength)
+            player = 1 - player
+        }
+        int winner = board.getMacroboardWinnerId()
+        while (board.getUndoDepth() > 0) {
+            board.unmakeMove()
+        }
+
+        expect:
+        consistent
+        winner == TicTacToeBoard.EMPTY_CELL || hasRow(state.getBoard().getMacroboardMask(winner), size, lineLength)
+        board.toString() == new TicTacToeBoard(width, width).toString()
+        board.getLegalMoveCount() == width * width
+
+        where:
+        width | lineLength
+        16    | 3
+        16    | 4
+        25    | 4
+    }
+
+    def "boards that are not N * N microboards of N * N cells are rejected"() {
+
+        when:
+        new TicTacToeBoard(width, height)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        width | height
+        9     | 16
+        12    | 12
+        36    | 36
+    }
+
+    /**
+     * Recomputes won, closed and available microboards from the cells, the way the board did
+     * before the macroboard was maintained incrementally
+     */
+    private static boolean matchesRescan(TicTacToeBoard board, int lastX, int lastY) {
+        int[] won = [0, 0]
+        int closed = 0
+        for (int microboard = 0; microboard < 9; microboard++) {
+            int[] masks = [0, 0]
+            int filled = 0
+            for (int bit = 0; bit < 9; bit++) {
+                int cell = board.getCell((microboard % 3) * 3 + bit % 3, microboard.intdiv(3) * 3 + bit.intdiv(3))
+                if (cell != TicTacToeBoard.EMPTY_CELL) {
+                    masks[cell] |= 1 << bit
+                    filled++
+                }
+            }
+            int winner = hasRow(masks[0], 3, 3) ? 0 : hasRow(masks[1], 3, 3) ? 1 : TicTacToeBoard.EMPTY_CELL
+            if (winner != TicTacToeBoard.EMPTY_CELL) {
+                won[winner] |= 1 << microboard
+            }
+            if (winner != TicTacToeBoard.EMPTY_CELL || filled == 9) {
+                closed |= 1 << microboard
+            }
+        }
+        int next = (lastY % 3) * 3 + lastX % 3
+        int available = (closed & 1 << next) == 0 ? 1 << next : 0x1FF & ~closed
+        return board.getMacroboardMask(0) == won[0] && board.getMacroboardMask(1) == won[1] &&
+                board.getClosedMicroboards() == closed && board.getAvailableMicroboards() == available
+    }
+
+    private static boolean hasRow(int mask, int size, int lineLength) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                for (List<Integer> d : [[1, 0], [0, 1], [1, 1], [1, -1]]) {
+                    boolean row = (0..<lineLength).every {
+                        int cx = x + d[0] * it
+                        int cy = y + d[1] * it
+                        cx >= 0 && cx < size && cy >= 0 && cy < size && (mask & 1 << (cy * size + cx)) != 0
+                    }
+                    if (row) {
+                        return true
+                    }
+                }
+            }
+        }
+        return false
+    }
+}
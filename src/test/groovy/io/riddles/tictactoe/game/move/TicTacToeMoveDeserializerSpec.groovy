@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.move
+
+import io.riddles.tictactoe.game.data.Coordinate
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Tests for scanning bot responses into moves.
+ */
+class TicTacToeMoveDeserializerSpec extends Specification {
+
+    @Unroll
+    def "response '#response' is scanned as #error"() {
+
+        setup:
+        TicTacToeMoveDeserializer deserializer = new TicTacToeMoveDeserializer()
+
+        expect:
+        deserializer.scan(response) == error
+
+        where:
+        response                   | error
+        "place_move 4 7"           | MoveError.NONE
+        "place_move -1 +3  "       | MoveError.NONE
+        "place_move 1"             | MoveError.INCORRECT_PARAMETERS
+        "place_move  1 2"          | MoveError.INCORRECT_PARAMETERS
+        "place_move 1 2 3"         | MoveError.INCORRECT_PARAMETERS
+        ""                         | MoveError.INCORRECT_PARAMETERS
+        "garbage"                  | MoveError.INCORRECT_PARAMETERS
+        "move 1 2"                 | MoveError.UNKNOWN_COMMAND
+        " place_move 1"            | MoveError.UNKNOWN_COMMAND
+        "place_move x 2"           | MoveError.UNPARSABLE
+        "place_move - 2"           | MoveError.UNPARSABLE
+        "place_move 1 2147483648"  | MoveError.UNPARSABLE
+        null                       | MoveError.UNPARSABLE
+    }
+
+    def "valid responses become moves with shared coordinates"() {
+
+        setup:
+        TicTacToeMoveDeserializer deserializer = new TicTacToeMoveDeserializer()
+
+        when:
+        TicTacToeMove move = deserializer.traverse("place_move 4 7")
+        TicTacToeMove far = deserializer.traverse("place_move -2147483648 2147483647")
+        TicTacToeMove error = deserializer.traverse("place_move 4")
+
+        then:
+        move.getException() == null
+        move.getCoordinate().is(Coordinate.of(4, 7))
+        far.getCoordinate() == new Coordinate(Integer.MIN_VALUE, Integer.MAX_VALUE)
+        error.getCoordinate() == null
+        error.getException().getMessage() == MoveError.INCORRECT_PARAMETERS.getMessage()
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor
+
+import io.riddles.tictactoe.engine.TicTacToeMatchRunner
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+/**
+ * Tests for ending games early.
+ */
+class TicTacToeAdjudicatorSpec extends Specification {
+
+    TicTacToeBoard wonMicroboards(List<Integer> owners) {
+        TicTacToeBoard board = new TicTacToeBoard(9, 9)
+        owners.eachWithIndex { Integer owner, int microboard ->
+            if (owner != null) {
+                (0..2).each { board.setCell((microboard % 3) * 3 + it, microboard.intdiv(3) * 3, owner) }
+            }
+        }
+        return board
+    }
+
+    def "dead draws are detected when every macroboard line is blocked"() {
+
+        expect:
+        TicTacToeAdjudicator.isDeadDraw(wonMicroboards([0, 1, 0, 0, 1, 1, 1, 0, null]))
+        !TicTacToeAdjudicator.isDeadDraw(wonMicroboards([0, 1, 0, 0, 1, 1, 1, null, null]))
+        !TicTacToeAdjudicator.isDeadDraw(new TicTacToeBoard(9, 9))
+    }
+
+    def "dead draws end the game early with the reason in the replay"() {
+
+        setup:
+        TicTacToeMatchRunner adjudicated = null
+        TicTacToeMatchRunner played = null
+        for (long seed = 0; seed < 200; seed++) {
+            played = runner(seed, null)
+            adjudicated = runner(seed, new TicTacToeAdjudicator(true, null))
+            if (adjudicated.getFinalState().getAdjudication() == AdjudicationReason.DEAD_DRAW) {
+                break
+            }
+        }
+        StringWriter adjudicatedReplay = new StringWriter()
+        adjudicated.writePlayedGame(adjudicatedReplay)
+        StringWriter playedReplay = new StringWriter()
+        played.writePlayedGame(playedReplay)
+
+        expect:
+        adjudicated.getFinalState().getAdjudication() == AdjudicationReason.DEAD_DRAW
+        adjudicated.getWinnerId() == null
+        adjudicated.getFinalState().getMoveNumber() < played.getFinalState().getMoveNumber()
+        adjudicatedReplay.toString().contains('"adjudication":1')
+        !playedReplay.toString().contains('adjudication')
+    }
+
+    def "the adjudicator is asked once per state"() {
+
+        setup:
+        int calls = 0
+        Set<TicTacToeBoard> boards = Collections.newSetFromMap(new IdentityHashMap<TicTacToeBoard, Boolean>())
+        TicTacToeAdjudicator adjudicator = new TicTacToeAdjudicator(true, null) {
+            @Override
+            AdjudicationReason adjudicate(TicTacToeBoard board, int playerToMove) {
+                calls++
+                boards.add(board)
+                return super.adjudicate(board, playerToMove)
+            }
+        }
+        TicTacToeMatchRunner runner = runner(3, adjudicator)
+        runner.getWinnerId()
+
+        expect:
+        calls > 0
+        calls == boards.size()
+    }
+
+    TicTacToeMatchRunner runner(long seed, TicTacToeAdjudicator adjudicator) {
+        Random random = new Random(seed)
+        TicTacToeBot bot = { TicTacToeBoard board, int botId ->
+            int[] moves = new int[81]
+            return moves[random.nextInt(board.getLegalMoves(moves))]
+        } as TicTacToeBot
+        TicTacToeMatchRunner runner = new TicTacToeMatchRunner([bot, bot], 9, 9, true)
+        runner.getProcessor().setAdjudicator(adjudicator)
+        runner.run()
+        return runner
+    }
+}
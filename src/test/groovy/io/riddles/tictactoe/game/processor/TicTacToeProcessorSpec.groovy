@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor
+
+import io.riddles.tictactoe.ai.TicTacToeSymmetry
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.move.ActionType
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import io.riddles.tictactoe.game.player.TicTacToeBotPlayer
+import io.riddles.tictactoe.game.player.TicTacToePlayer
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+/**
+ * Tests for the updates the processor sends to the bots.
+ */
+class TicTacToeProcessorSpec extends Specification {
+
+    def "bots that only get delta updates see the same board as the engine"() {
+
+        setup:
+        Random random = new Random(7)
+        TicTacToeTestGame game
+        boolean inSync = true
+        TicTacToeBot bot = { TicTacToeBoard board, int botId ->
+            inSync &= board.toString() == game.state.getBoard().toString()
+            inSync &= board.getAvailableMicroboards() == game.state.getBoard().getAvailableMicroboards()
+            int[] moves = new int[81]
+            return moves[random.nextInt(board.getLegalMoves(moves))]
+        } as TicTacToeBot
+
+        List<String> updates = []
+        List<TicTacToePlayer> players = [0, 1].collect { int id ->
+            new TicTacToeBotPlayer(id, bot, 9, 9) {
+                @Override
+                void sendUpdate(String type, String value) {
+                    updates.add(type)
+                    super.sendUpdate(type, value)
+                }
+            }
+        }
+        game = new TicTacToeTestGame(new TicTacToeBoard(9, 9), false, players)
+        TicTacToeProcessor processor = game.processor
+        processor.setUpdateMode(UpdateMode.DELTA)
+
+        while (!game.hasEnded()) {
+            TicTacToePlayer player = game.getPlayer(game.getPlayerToMove())
+            if (game.moves == 20) {
+                processor.requestResync(player.getId())
+            }
+            processor.sendUpdates(game.state, player)
+            game.respond(player.requestMove(ActionType.MOVE))
+        }
+        TicTacToeState state = game.state
+        int moves = game.moves
+
+        expect:
+        inSync
+        state.getPlayerStateById(state.getPlayerId()).getMove().getException() == null
+        updates.count("field") == 3 /* First update of both players, and the resync */
+        updates.count("last_move") == moves - 3
+    }
+
+    def "bots that get full updates see the same board as the engine"() {
+
+        setup:
+        Random random = new Random(seed)
+        TicTacToeTestGame game
+        boolean inSync = true
+        TicTacToeBot bot = { TicTacToeBoard board, int botId ->
+            TicTacToeBoard engineBoard = game.state.getBoard()
+            inSync &= board.getActiveMicroboard() == engineBoard.getActiveMicroboard()
+            inSync &= TicTacToeSymmetry.key(board, botId, TicTacToeSymmetry.IDENTITY) ==
+                    TicTacToeSymmetry.key(engineBoard, botId, TicTacToeSymmetry.IDENTITY)
+            int[] moves = new int[81]
+            return moves[random.nextInt(board.getLegalMoves(moves))]
+        } as TicTacToeBot
+        game = new TicTacToeTestGame(new TicTacToeBoard(9, 9), false,
+                [0, 1].collect { new TicTacToeBotPlayer(it, bot, 9, 9) })
+
+        while (!game.hasEnded()) {
+            TicTacToePlayer player = game.getPlayer(game.getPlayerToMove())
+            game.processor.sendUpdates(game.state, player)
+            game.respond(player.requestMove(ActionType.MOVE))
+        }
+
+        expect:
+        inSync
+
+        where:
+        seed << (1..20)
+    }
+}
+
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.processor
+
+import io.riddles.tictactoe.game.TicTacToeSerializer
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.Coordinate
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.move.MoveError
+import io.riddles.tictactoe.game.move.TicTacToeMove
+import io.riddles.tictactoe.game.state.TicTacToeState
+import io.riddles.tictactoe.game.state.TicTacToeStateDeserializer
+import spock.lang.Specification
+
+/**
+ * Tests for time controls applied by the engine.
+ */
+class TicTacToeTimebankSpec extends Specification {
+
+    def "slow moves use up the timebank and forfeit after too many timeouts"() {
+
+        setup:
+        TicTacToeTestGame game = new TicTacToeTestGame()
+        TicTacToeProcessor processor = game.processor
+        processor.setTimebank(new TicTacToeTimebank(50, 10, 1))
+
+        TicTacToeState initialState = game.initialState
+        TicTacToeState state = initialState
+        List<Long> timebanks = []
+        List<Integer> timeouts = []
+        /* Player 0 takes 30 ms per move, player 1 answers at once */
+        [[4, 4], [3, 3], [0, 0], [1, 1], [4, 3], [3, 0], [0, 1]].each { List<Integer> cell ->
+            TicTacToeMove move = new TicTacToeMove(Coordinate.of(cell[0], cell[1]))
+            state = game.move(move, game.getPlayerToMove() == 0 ? 30 : 0)
+            timebanks.add(state.getPlayerStateById(0).getTimebank())
+            timeouts.add(state.getPlayerStateById(0).getTimeouts())
+        }
+        TicTacToeMove lastMove = state.getPlayerStateById(0).getMove()
+
+        TicTacToeStateDeserializer deserializer = new TicTacToeStateDeserializer(game.playerProvider.getPlayers())
+        TicTacToeState replayed = deserializer.traverse(new TicTacToeSerializer().traverseToString(processor, initialState))
+
+        expect:
+        timebanks == [30L, 30L, 10L, 10L, 10L, 10L, 10L]
+        timeouts == [0, 0, 0, 0, 1, 1, 2]
+        state.getPlayerStateById(1).getTimebank() == 50
+        MoveError.fromException(lastMove.getException()) == MoveError.TIMEOUT
+        state.getBoard().getCell(0, 1) == TicTacToeBoard.EMPTY_CELL
+        processor.hasGameEnded(state)
+        processor.getWinnerId(state) == 1
+        replayed.getPlayerStateById(0).getTimeouts() == 2
+        replayed.getPlayerStateById(0).getTimebank() == 10
+        replayed.getPlayerStateById(1).getTimebank() == 50
+    }
+}
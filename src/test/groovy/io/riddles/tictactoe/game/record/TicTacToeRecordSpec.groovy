@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.record
+
+import io.riddles.tictactoe.game.TicTacToeSerializer
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.Coordinate
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.move.TicTacToeMove
+import io.riddles.tictactoe.game.processor.AdjudicationReason
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor
+import io.riddles.tictactoe.game.processor.TicTacToeTimebank
+import io.riddles.tictactoe.game.state.TicTacToeState
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Tests for the binary match record archive.
+ */
+class TicTacToeRecordSpec extends Specification {
+
+    TicTacToeProcessor processor
+
+    TicTacToeState play(List<String> responses, TicTacToeBoard board = new TicTacToeBoard(9, 9)) {
+        TicTacToeTestGame game = new TicTacToeTestGame(board, true)
+        processor = game.processor
+        game.play(responses)
+        return game.initialState
+    }
+
+    def "games read back from the archive serialize the same"() {
+
+        setup:
+        Path dir = Files.createTempDirectory("records")
+        Path archive = dir.resolve("games.bin")
+        Path index = dir.resolve("games.idx")
+        TicTacToeSerializer serializer = new TicTacToeSerializer()
+
+        TicTacToeState first = play(["place_move 4 4", "place_move 3 3", "place_move 0 1", "place_move 1 3", "place_move 5 0"])
+        String firstJson = serializer.traverseToString(processor, first)
+        TicTacToeState second = play(["place_move 3 3", "place_move 2 0", "garbage"])
+        String secondJson = serializer.traverseToString(processor, second)
+
+        TicTacToeRecordWriter writer = new TicTacToeRecordWriter(archive, index)
+        writer.write(processor, first)
+        writer.write(processor, second)
+        writer.close()
+
+        TicTacToeRecordReader reader = new TicTacToeRecordReader(archive, index)
+
+        expect:
+        reader.getGameCount() == 2
+        reader.readWinner(1) == 1
+        serializer.traverseToString(processor, reader.readGame(0)) == firstJson
+        serializer.traverseToString(processor, reader.readGame(1)) == secondJson
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "adjudicated games read back with the stored reason and winner"() {
+
+        setup:
+        Path dir = Files.createTempDirectory("records")
+        TicTacToeState initialState = play(["place_move 4 4", "place_move 3 3", "place_move 0 1"])
+        TicTacToeState finalState = initialState
+        while (finalState.hasNextState()) {
+            finalState = (TicTacToeState) finalState.getNextState()
+        }
+        finalState.setAdjudication(AdjudicationReason.TABLEBASE, 0) /* As a tablebase would decide it */
+        String json = new TicTacToeSerializer().traverseToString(processor, initialState)
+
+        TicTacToeRecordWriter writer = new TicTacToeRecordWriter(dir.resolve("games.bin"), dir.resolve("games.idx"))
+        writer.write(processor, initialState)
+        writer.close()
+        TicTacToeRecordReader reader = new TicTacToeRecordReader(dir.resolve("games.bin"), dir.resolve("games.idx"))
+
+        TicTacToeState readState = reader.readGame(0)
+        while (readState.hasNextState()) {
+            readState = (TicTacToeState) readState.getNextState()
+        }
+
+        expect:
+        reader.readWinner(0) == 0
+        readState.getAdjudication() == AdjudicationReason.TABLEBASE
+        processor.hasGameEnded(readState)
+        processor.getWinnerId(readState) == 0
+        new TicTacToeSerializer().traverseToString(processor, reader.readGame(0)) == json
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "timebanks and timeouts read back from the archive"() {
+
+        setup:
+        Path dir = Files.createTempDirectory("records")
+        TicTacToeTestGame game = new TicTacToeTestGame()
+        processor = game.processor
+        processor.setTimebank(new TicTacToeTimebank(50, 10, 1))
+        TicTacToeState initialState = game.initialState
+        /* Player 0 takes 30 ms per move, player 1 answers at once */
+        [[4, 4], [3, 3], [0, 0], [1, 1], [4, 3]].each { List<Integer> cell ->
+            game.move(new TicTacToeMove(Coordinate.of(cell[0], cell[1])), game.getPlayerToMove() == 0 ? 30 : 0)
+        }
+        String json = new TicTacToeSerializer().traverseToString(processor, initialState)
+
+        TicTacToeRecordWriter writer = new TicTacToeRecordWriter(dir.resolve("games.bin"), dir.resolve("games.idx"))
+        writer.write(processor, initialState)
+        writer.close()
+        TicTacToeRecordReader reader = new TicTacToeRecordReader(dir.resolve("games.bin"), dir.resolve("games.idx"))
+
+        TicTacToeState readState = reader.readGame(0)
+        while (readState.hasNextState()) {
+            readState = (TicTacToeState) readState.getNextState()
+        }
+
+        expect:
+        readState.getPlayerStateById(0).getTimebank() == 10
+        readState.getPlayerStateById(0).getTimeouts() == 1
+        readState.getPlayerStateById(1).getTimebank() == 50
+        new TicTacToeSerializer().traverseToString(processor, reader.readGame(0)) == json
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "games with a shorter line length replay on the same rules"() {
+
+        setup:
+        Path dir = Files.createTempDirectory("records")
+        TicTacToeState initialState = play(["place_move 4 4", "place_move 3 4", "place_move 0 3",
+                "place_move 1 1", "place_move 4 3", "place_move 4 0", "place_move 3 0"], new TicTacToeBoard(9, 9, 2))
+        String json = new TicTacToeSerializer().traverseToString(processor, initialState)
+
+        TicTacToeRecordWriter writer = new TicTacToeRecordWriter(dir.resolve("games.bin"), dir.resolve("games.idx"))
+        writer.write(processor, initialState)
+        writer.close()
+        TicTacToeRecordReader reader = new TicTacToeRecordReader(dir.resolve("games.bin"), dir.resolve("games.idx"))
+        TicTacToeState readState = reader.readGame(0)
+
+        expect:
+        readState.getBoard().getLineLength() == 2
+        new TicTacToeSerializer().traverseToString(processor, readState) == json
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "games on boards of more than 255 cells read back"() {
+
+        setup:
+        Path dir = Files.createTempDirectory("records")
+        TicTacToeState initialState = play(["place_move 15 15", "place_move 13 12", "place_move 5 0",
+                "garbage"], new TicTacToeBoard(16, 16))
+        String json = new TicTacToeSerializer().traverseToString(processor, initialState)
+
+        TicTacToeRecordWriter writer = new TicTacToeRecordWriter(dir.resolve("games.bin"), dir.resolve("games.idx"))
+        writer.write(processor, initialState)
+        writer.close()
+        TicTacToeRecordReader reader = new TicTacToeRecordReader(dir.resolve("games.bin"), dir.resolve("games.idx"))
+        TicTacToeState readState = reader.readGame(0)
+
+        expect:
+        readState.getBoard().getWidth() == 16
+        ((TicTacToeState) readState.getNextState()).getBoard().getCell(15, 15) == 0
+        new TicTacToeSerializer().traverseToString(processor, readState) == json
+
+        cleanup:
+        reader?.close()
+    }
+}
+
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.state
+
+import io.riddles.tictactoe.game.TicTacToeSerializer
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.processor.TicTacToeProcessor
+import spock.lang.Specification
+
+/**
+ * Tests for rebuilding state chains from replay JSON.
+ */
+class TicTacToeStateDeserializerSpec extends Specification {
+
+    def "replay JSON is rebuilt into the same state chain"() {
+
+        setup:
+        TicTacToeTestGame game = new TicTacToeTestGame()
+        TicTacToeProcessor processor = game.processor
+        TicTacToeState initialState = game.initialState
+        TicTacToeState state = game.play(["place_move 4 4", "place_move 3 3", "place_move 0 1", "place_move 0 1"])
+
+        TicTacToeSerializer serializer = new TicTacToeSerializer()
+        String json = serializer.traverseToString(processor, initialState)
+
+        TicTacToeStateDeserializer deserializer = new TicTacToeStateDeserializer(game.playerProvider.getPlayers())
+        TicTacToeState finalState = deserializer.traverse(json)
+        TicTacToeState firstState = finalState
+        while (firstState.getPreviousState() != null) {
+            firstState = firstState.getPreviousState()
+        }
+
+        expect:
+        finalState.getMoveNumber() == 4
+        finalState.getPlayerId() == 1
+        finalState.getPlayerStateById(1).getMove().getException().getMessage() == "Move not in active macroboard"
+        finalState.getBoard().toString() == state.getBoard().toString()
+        serializer.traverseToString(processor, firstState) == json
+    }
+
+    def "replays keep a shorter line length in their settings"() {
+
+        setup:
+        TicTacToeTestGame game = new TicTacToeTestGame(new TicTacToeBoard(9, 9, 2), true)
+        TicTacToeState state = game.play(["place_move 4 4", "place_move 3 4", "place_move 0 3",
+                "place_move 1 1", "place_move 4 3", "place_move 4 0", "place_move 3 0"])
+
+        TicTacToeSerializer serializer = new TicTacToeSerializer()
+        String json = serializer.traverseToString(game.processor, game.initialState)
+        String fullRows = serializer.traverseToString(game.processor, new TicTacToeTestGame().initialState)
+
+        TicTacToeStateDeserializer deserializer = new TicTacToeStateDeserializer(game.playerProvider.getPlayers())
+        TicTacToeState finalState = deserializer.traverse(json)
+
+        expect:
+        json.contains('"line_length":2')
+        !fullRows.contains('line_length')
+        finalState.getBoard().getLineLength() == 2
+        finalState.getBoard().getMacroboardWinner() == state.getBoard().getMacroboardWinner()
+        deserializer.traverse(fullRows).getBoard().getLineLength() == 3
+    }
+}
+
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.game.state
+
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import spock.lang.Specification
+
+/**
+ * Tests for the presentation strings states render from their board.
+ */
+class TicTacToeStateSpec extends Specification {
+
+    def "lazy presentation strings equal the ones the processor used to store per state"() {
+
+        setup:
+        Random random = new Random(seed)
+        TicTacToeTestGame game = new TicTacToeTestGame()
+        TicTacToeState initialState = game.initialState
+
+        /* What the processor rendered right after creating every state, before the game moved on */
+        List<String> fields = []
+        List<String> possibleMoves = []
+        while (!game.hasEnded()) {
+            int playerId = game.getPlayerToMove()
+            if (game.moves == rejectedMove) {
+                game.respond("place_move 9 0") /* Out of bounds */
+            } else {
+                List<Integer> cells = (0..<81).findAll {
+                    game.state.getBoard().getCell(it % 9, it.intdiv(9)) == TicTacToeBoard.EMPTY_CELL &&
+                            game.state.getBoard().isInActiveMicroboard(it % 9, it.intdiv(9))
+                }
+                game.place(cells[random.nextInt(cells.size())])
+            }
+            fields.add(game.state.getBoard().toPresentationString(playerId, false))
+            possibleMoves.add(game.state.getBoard().toPresentationString(playerId, true))
+        }
+        int moveNumber = game.moves
+
+        List<String> lazyFields = []
+        List<String> lazyPossibleMoves = []
+        TicTacToeState state = initialState
+        while (state.hasNextState()) {
+            state = (TicTacToeState) state.getNextState()
+            lazyFields.add(state.getFieldPresentationString())
+            lazyPossibleMoves.add(state.getPossibleMovesPresentationString())
+        }
+
+        expect:
+        initialState.getFieldPresentationString() == (["0"] * 81).join(",")
+        initialState.getPossibleMovesPresentationString() == (["4"] * 81).join(",")
+        lazyFields.size() == moveNumber
+        lazyFields == fields
+        lazyPossibleMoves == possibleMoves
+        rejectedMove == Integer.MAX_VALUE || state.getPlayerStateById(state.getPlayerId()).getMove().getException() != null
+
+        where:
+        seed | rejectedMove
+        1L   | Integer.MAX_VALUE
+        2L   | 17
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.metrics
+
+import io.riddles.tictactoe.game.TicTacToeTestGame
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import org.json.JSONObject
+import spock.lang.Specification
+
+/**
+ * Tests for the latency histograms and the metrics export.
+ */
+class TicTacToeMetricsSpec extends Specification {
+
+    def "percentiles are reported within the bucket precision"() {
+
+        setup:
+        LatencyHistogram histogram = new LatencyHistogram()
+        (1..100000).each { histogram.record(it * 1000L) }
+
+        expect:
+        histogram.getCount() == 100000
+        histogram.getMax() == 100000000L
+        Math.abs(histogram.getValueAtPercentile(50) - 50000000L) <= 50000000L / 16
+        Math.abs(histogram.getValueAtPercentile(99) - 99000000L) <= 99000000L / 16
+        histogram.getValueAtPercentile(100) == histogram.getMax()
+        Math.abs(histogram.getMean() - 50000500) < 1
+    }
+
+    def "processor records latencies and rejected moves"() {
+
+        setup:
+        TicTacToeMetrics metrics = new TicTacToeMetrics()
+        TicTacToeTestGame game = new TicTacToeTestGame(new TicTacToeBoard(9, 9), false)
+        game.processor.setMetrics(metrics)
+        ["place_move 4 4", "place_move 4 4"].each { String response ->
+            game.processor.sendUpdates(game.state, game.getPlayer(game.getPlayerToMove()))
+            game.respond(response)
+            game.hasEnded()
+        }
+        JSONObject json = metrics.toJson()
+        String prometheus = metrics.toPrometheus()
+
+        expect:
+        metrics.histogram(TicTacToeMetrics.TRANSFORM).getCount() == 2
+        metrics.histogram(TicTacToeMetrics.SEND_UPDATES).getCount() == 2
+        metrics.counter(TicTacToeMetrics.INVALID_MOVES, "reason", "field_filled").sum() == 1
+        json.getJSONArray("counters").getJSONObject(0).getString("reason") == "field_filled"
+        json.getJSONArray("histograms").length() == 4
+        prometheus.contains("# TYPE tictactoe_transform_seconds summary\n")
+        prometheus.contains("tictactoe_transform_seconds_count 2\n")
+        prometheus.contains("tictactoe_invalid_moves_total{reason=\"field_filled\"} 1\n")
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.selfplay
+
+import io.riddles.tictactoe.ai.TicTacToeMctsBot
+import io.riddles.tictactoe.ai.TicTacToeRandomBot
+import io.riddles.tictactoe.ai.TicTacToeScriptedBot
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Tests for the self-play generator and its shard format.
+ */
+class TicTacToeSelfPlayGeneratorSpec extends Specification {
+
+    def "records replay into the games that were played"() {
+
+        setup:
+        Path directory = Files.createTempDirectory("selfplay")
+        TicTacToeSelfPlayGenerator generator = new TicTacToeSelfPlayGenerator(policy0, policy1, width, width)
+        generator.setLineLength(lineLength)
+        generator.setSeed(42)
+        generator.setBufferSize(4096)
+        TicTacToeSelfPlayResult result = generator.run(directory, "random", 25, 3)
+
+        int recordSize = TicTacToeSelfPlayFormat.getRecordSize(width, width)
+        int planeLongs = TicTacToeSelfPlayFormat.getPlaneLongs(width, width)
+        List<ByteBuffer> shards = result.getShards().collect { ByteBuffer.wrap(Files.readAllBytes(it)) }
+        long games = 0
+        long positions = 0
+        boolean consistent = true
+        TicTacToeBoard board = null
+        List<Integer> outcomes = []
+        for (ByteBuffer shard : shards) {
+            consistent &= shard.getInt() == TicTacToeSelfPlayFormat.MAGIC
+            consistent &= shard.get() == TicTacToeSelfPlayFormat.VERSION
+            consistent &= shard.get() == width && shard.get() == width && shard.get() == lineLength
+            consistent &= shard.getShort() == recordSize && shard.getShort() == planeLongs
+            consistent &= (shard.remaining() % recordSize) == 0
+            while (shard.hasRemaining()) {
+                int ply = shard.getShort()
+                int player = shard.get()
+                int outcome = shard.get()
+                int move = shard.getShort()
+                int legalCount = shard.getShort()
+                long[] planes = (0..<3 * planeLongs).collect { shard.getLong() } as long[]
+                if (ply == 0) {
+                    games++
+                    board = new TicTacToeBoard(width, width, lineLength)
+                }
+                (0..<width * width).each { int cell ->
+                    int stone = board.getCell(cell % width, cell.intdiv(width))
+                    consistent &= planeBit(planes, 0, cell) == (stone == player)
+                    consistent &= planeBit(planes, planeLongs, cell) == (stone == 1 - player)
+                    consistent &= planeBit(planes, 2 * planeLongs, cell) == board.isLegalMove(cell % width, cell.intdiv(width))
+                }
+                consistent &= legalCount == board.getLegalMoveCount()
+                consistent &= player == ply % 2
+                board.makeMove(move % width, move.intdiv(width), player)
+                int winner = board.getMacroboardWinnerId()
+                if (winner != TicTacToeBoard.EMPTY_CELL) {
+                    consistent &= outcome == (winner == player ? 1 : -1)
+                }
+                outcomes << outcome
+                positions++
+            }
+        }
+
+        expect:
+        consistent
+        games == 25
+        positions == result.getPositions()
+        result.getWins(0) + result.getWins(1) + result.getDraws() == 25
+        outcomes.every { it in [-1, 0, 1] }
+
+        cleanup:
+        result?.getShards()?.each { Files.deleteIfExists(it) }
+        Files.deleteIfExists(directory)
+
+        where:
+        width | lineLength | policy0                                         | policy1
+        9     | 3          | { long seed -> new TicTacToeRandomBot(seed) }   | { long seed -> new TicTacToeRandomBot(seed) }
+        16    | 3          | { long seed -> new TicTacToeRandomBot(seed) }   | { long seed -> new TicTacToeRandomBot(seed) }
+        9     | 3          | { long seed -> scrambling(seed) }               | { long seed -> new TicTacToeRandomBot(seed) }
+    }
+
+    def "shards are the same for the same seed"() {
+
+        setup:
+        Path directory = Files.createTempDirectory("selfplay")
+        TicTacToeSelfPlayGenerator generator = new TicTacToeSelfPlayGenerator(
+                { long seed -> new TicTacToeScriptedBot([40, 36] as int[], new TicTacToeRandomBot(seed)) },
+                { long seed -> TicTacToeMctsBot.withPlayouts(50, seed) }, 9, 9)
+        generator.setSeed(7)
+        TicTacToeSelfPlayResult first = generator.run(directory, "first", 10, 2)
+        TicTacToeSelfPlayResult second = generator.run(directory, "second", 10, 2)
+        ByteBuffer shard = ByteBuffer.wrap(Files.readAllBytes(first.getShards()[0]))
+
+        expect:
+        (0..1).every { Arrays.equals(Files.readAllBytes(first.getShards()[it]), Files.readAllBytes(second.getShards()[it])) }
+        shard.getShort(TicTacToeSelfPlayFormat.HEADER_SIZE + 4) == 40 /* The move of the script */
+
+        cleanup:
+        (first.getShards() + second.getShards()).each { Files.deleteIfExists(it) }
+        Files.deleteIfExists(directory)
+    }
+
+    def "a policy that plays an illegal move loses without being recorded"() {
+
+        setup:
+        Path directory = Files.createTempDirectory("selfplay")
+        TicTacToeBot outOfBounds = { TicTacToeBoard board, int botId -> -1 } as TicTacToeBot
+        TicTacToeSelfPlayGenerator generator = new TicTacToeSelfPlayGenerator(
+                { long seed -> TicTacToeMctsBot.withPlayouts(50, seed) }, { long seed -> outOfBounds }, 9, 9)
+        TicTacToeSelfPlayResult result = generator.run(directory, "broken", 2, 1)
+
+        expect:
+        result.getWins(0) == 2
+        result.getPositions() == 2
+        Files.size(result.getShards()[0]) == TicTacToeSelfPlayFormat.HEADER_SIZE + 2 * TicTacToeSelfPlayFormat.getRecordSize(9, 9)
+
+        cleanup:
+        result?.getShards()?.each { Files.deleteIfExists(it) }
+        Files.deleteIfExists(directory)
+    }
+
+    /**
+     * A bot that is not read-only and plays on the board it gets before it answers
+     */
+    private static TicTacToeBot scrambling(long seed) {
+        TicTacToeRandomBot random = new TicTacToeRandomBot(seed)
+        return { TicTacToeBoard board, int botId ->
+            int move = random.getMove(board, botId)
+            board.makeMove(move % board.getWidth(), move.intdiv(board.getWidth()), botId)
+            return move
+        } as TicTacToeBot
+    }
+
+    private static boolean planeBit(long[] planes, int offset, int cell) {
+        return (planes[offset + cell.intdiv(64)] & 1L << cell) != 0
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 riddles.io (developers@riddles.io)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *     For the full copyright and license information, please view the LICENSE
+ *     file that was distributed with this source code.
+ */
+
+package io.riddles.tictactoe.tournament
+
+import io.riddles.tictactoe.ai.TicTacToeMctsBot
+import io.riddles.tictactoe.ai.TicTacToeScriptedBot
+import io.riddles.tictactoe.game.data.TicTacToeBoard
+import io.riddles.tictactoe.game.player.TicTacToeBot
+import spock.lang.Specification
+
+/**
+ * Tests for round-robin tournaments.
+ */
+class TicTacToeTournamentSpec extends Specification {
+
+    def "entrants that only play illegal moves lose every match"() {
+
+        setup:
+        TicTacToeBot firstLegal = { TicTacToeBoard board, int botId ->
+            (0..80).find { int c -> board.isInActiveMicroboard(c % 9, c.intdiv(9)) &&
+                    board.getCell(c % 9, c.intdiv(9)) == TicTacToeBoard.EMPTY_CELL }
+        } as TicTacToeBot
+        TicTacToeBot outOfBounds = { TicTacToeBoard board, int botId -> -1 } as TicTacToeBot
+
+        List<TicTacToeEntrant> entrants = [
+                new TicTacToeEntrant("first", { firstLegal }),
+                new TicTacToeEntrant("second", { firstLegal }),
+                new TicTacToeEntrant("broken", { outOfBounds })]
+        TicTacToeTournament tournament = new TicTacToeTournament(entrants, 3, 9, 9)
+        TicTacToeStandings standings = tournament.run(4)
+
+        expect:
+        tournament.createSchedule().size() == 18
+        standings.getLosses(2) == 12
+        standings.getWins(2) == 0
+        standings.getWins(0) + standings.getDraws(0) + standings.getLosses(0) == 12
+        standings.getRating(2) < TicTacToeStandings.INITIAL_RATING
+    }
+
+    def "bots are closed after their match, so their worker threads stop"() {
+
+        setup:
+        List<TicTacToeEntrant> entrants = [
+                new TicTacToeEntrant("mcts", { new TicTacToeMctsBot(5, 2) }),
+                new TicTacToeEntrant("scripted", { new TicTacToeScriptedBot([40] as int[], new TicTacToeMctsBot(5, 2)) })]
+        new TicTacToeTournament(entrants, 1, 9, 9).run(2)
+        long deadline = System.currentTimeMillis() + 5000
+        while (workerThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        expect:
+        workerThreads() == 0
+    }
+
+    private static int workerThreads() {
+        return Thread.getAllStackTraces().keySet().count { it.getName() == "mcts-worker" && it.isAlive() }
+    }
+}